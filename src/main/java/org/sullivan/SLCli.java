@@ -61,7 +61,15 @@ public class SLCli {
         addCommand("load", "load <word-name>", "Load and analyze word model for later evaluation.");
         addCommand("save", "save <word-name>", "Save word model data.");
         addCommand("evaluate", "evaluate <word-name> <*.wav|*.pronunciation>", "Evaluate pronunciation.");
+        addCommand("evaluate-batch", "evaluate-batch <word-name> <directory|list-file>", "Evaluate all pronunciations in a directory or listed in a file, and write a JSON-lines report.");
+        addCommand("score", "score <word-name> <*.wav|*.pronunciation>", "Score pronunciation without changing word model.");
+        addCommand("score-learn", "score-learn <word-name> <*.wav|*.pronunciation>", "Score pronunciation and queue it for the next [learn].");
+        addCommand("learn", "learn <word-name>", "Apply pronunciations queued by [score-learn] to word model.");
+        addCommand("serve", "serve <port>", "Start HTTP evaluation server (POST /words/<word-name>/score, /words/<word-name>/evaluate).");
         addCommand("status", "status <word-name>", "Show inner status of certain word.");
+        addCommand("warping", "warping <word-name> <none|sakoe-chiba|itakura> <ratio>", "Set DTW warping window of word and report changes against unconstrained DTW.");
+        addCommand("profile", "profile <word-name> <legacy|coarse|standard|fine>", "Save and reload word with another feature profile.");
+        addCommand("benchmark", "benchmark <word-name> <all|profile-name,...>", "Compare extraction cost, DTW cost and nearest-neighbour accuracy of feature profiles.");
         addCommand("resolve", "resolve", "Show list of data requests");
         addCommand("resolve-play", "resolve-play", "Play pronunciation of data request");
         addCommand("resolve-response", "resolve-response <message>", "Answer to spontaneous system learning data requests.");
@@ -19,7 +19,9 @@ package org.sullivan;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 노드의 집합으로 이루어진 클러스터 하나를 표현하는 클래스
@@ -41,6 +43,12 @@ public class SLCluster implements SLMeasurable<SLCluster> {
      */
     private SLClusterGroup context;
 
+    /**
+     * 각 노드에서 클러스터 내 다른 모든 노드까지의 거리 합.
+     * 노드가 추가/제거될 때마다 갱신되므로 centroid를 O(k)에 다시 구할 수 있다.
+     */
+    private Map<SLNode, double[]> distanceSums;
+
     /**
      * 클러스터의 중심 노드. 클러스터를 대표하는 값이라고 할 수 있다
      */
@@ -54,17 +62,25 @@ public class SLCluster implements SLMeasurable<SLCluster> {
     /**
      * description 밀도
      */
-    private float descriptionDensity;
+    private volatile float descriptionDensity;
 
 
     public SLCluster(SLClusterGroup context) {
         this.context = context;
         this.nodes = new ArrayList<>();
+        this.distanceSums = new HashMap<>();
     }
 
     public SLCluster(SLClusterGroup context, List<SLNode> nodes) {
         this.context = context;
+        this.nodes = new ArrayList<>();
+        this.distanceSums = new HashMap<>();
+
+        for (SLNode node : nodes)
+            accumulate(node);
+
         this.nodes = nodes;
+        updateCentroid();
     }
 
     /**
@@ -122,12 +138,13 @@ public class SLCluster implements SLMeasurable<SLCluster> {
 
         List<SLDescription> descriptions = new ArrayList<>();
 
-        // centroid와의 연관성에 따라 소팅한다.
-        Collections.sort(nodes, (SLNode n1, SLNode n2) ->
+        // centroid와의 연관성에 따라 소팅한다. 읽기 작업이므로 노드 리스트의 복사본을 정렬한다.
+        List<SLNode> sortedNodes = new ArrayList<>(nodes);
+        Collections.sort(sortedNodes, (SLNode n1, SLNode n2) ->
                 (int) (context.wordNodes.getDistance(n1, centroid) - context.wordNodes.getDistance(n2, centroid))
         );
 
-        for (SLNode node : nodes) {
+        for (SLNode node : sortedNodes) {
             descriptions.addAll(node.descriptions);
         }
 
@@ -137,7 +154,7 @@ public class SLCluster implements SLMeasurable<SLCluster> {
         */
         descriptionDensity = ((float) descriptions.size() / (float) nodes.size());
         if (descriptionDensity < 0.3f) {
-            SLDescriptionRequest.request(this);
+            context.requestDescription(this);
         }
 
         // TODO: 이 클러스터에 추가적인 DESCRIPTION이 필요한지 DETERMINE 하는 모델 만들기
@@ -152,7 +169,7 @@ public class SLCluster implements SLMeasurable<SLCluster> {
      * @param node
      */
     public void addNode(SLNode node) {
-        this.nodes.add(node);
+        accumulate(node);
         updateCentroid();
     }
 
@@ -162,7 +179,8 @@ public class SLCluster implements SLMeasurable<SLCluster> {
      * @param nodes
      */
     public void addNodes(List<SLNode> nodes) {
-        this.nodes.addAll(nodes);
+        for (SLNode node : nodes)
+            accumulate(node);
         updateCentroid();
     }
 
@@ -172,7 +190,7 @@ public class SLCluster implements SLMeasurable<SLCluster> {
      * @param node
      */
     public void removeNode(SLNode node) {
-        this.nodes.remove(node);
+        deduct(node);
         updateCentroid();
     }
 
@@ -182,10 +200,51 @@ public class SLCluster implements SLMeasurable<SLCluster> {
      * @param nodes
      */
     public void removeNodes(List<SLNode> nodes) {
-        this.nodes.removeAll(nodes);
+        for (SLNode node : new ArrayList<>(nodes))
+            deduct(node);
         updateCentroid();
     }
 
+    /**
+     * 노드를 리스트에 추가하고, 기존 노드들과의 거리를 거리 합에 반영한다. O(k)
+     *
+     * @param node
+     */
+    private void accumulate(SLNode node) {
+
+        double sum = 0;
+
+        for (SLNode member : nodes) {
+            if (member.equals(node)) continue;
+
+            double distance = context.wordNodes.getDistance(member, node);
+            distanceSums.get(member)[0] += distance;
+            sum += distance;
+        }
+
+        nodes.add(node);
+        distanceSums.put(node, new double[]{sum});
+    }
+
+    /**
+     * 노드를 리스트에서 제거하고, 남은 노드들의 거리 합에서 그 노드까지의 거리를 뺀다. O(k)
+     *
+     * @param node
+     */
+    private void deduct(SLNode node) {
+
+        if (!nodes.remove(node))
+            return;
+
+        distanceSums.remove(node);
+
+        for (SLNode member : nodes) {
+            if (member.equals(node)) continue;
+
+            distanceSums.get(member)[0] -= context.wordNodes.getDistance(member, node);
+        }
+    }
+
     /**
      * 두 클러스터 간 거리를 구한다.
      *
@@ -197,6 +256,16 @@ public class SLCluster implements SLMeasurable<SLCluster> {
         return context.wordNodes.getDistance(centroid, cluster.centroid);
     }
 
+    @Override
+    public double getDistance(SLCluster cluster, double cutoff) {
+        return context.wordNodes.getDistance(centroid, cluster.centroid, cutoff);
+    }
+
+    @Override
+    public double getLowerBound(SLCluster cluster) {
+        return context.wordNodes.getLowerBound(centroid, cluster.centroid);
+    }
+
     /**
      * 다른 클러스터와 병합한다. 리턴되는 값은 새 클러스터이다.
      *
@@ -210,6 +279,23 @@ public class SLCluster implements SLMeasurable<SLCluster> {
         // 포함하고 있는 노드들을 합친다.
         mergedCluster.nodes.addAll(this.nodes);
         mergedCluster.nodes.addAll(cluster.nodes);
+
+        // 기존 거리 합에 상대 클러스터 노드들까지의 거리만 더하면 된다. O(k1 * k2)
+        for (SLNode node : this.nodes)
+            mergedCluster.distanceSums.put(node, new double[]{this.distanceSums.get(node)[0]});
+        for (SLNode node : cluster.nodes)
+            mergedCluster.distanceSums.put(node, new double[]{cluster.distanceSums.get(node)[0]});
+
+        for (SLNode nodeA : this.nodes) {
+            for (SLNode nodeB : cluster.nodes) {
+                if (nodeA.equals(nodeB)) continue;
+
+                double distance = context.wordNodes.getDistance(nodeA, nodeB);
+                mergedCluster.distanceSums.get(nodeA)[0] += distance;
+                mergedCluster.distanceSums.get(nodeB)[0] += distance;
+            }
+        }
+
         mergedCluster.updateCentroid();
 
         return mergedCluster;
@@ -238,20 +324,14 @@ public class SLCluster implements SLMeasurable<SLCluster> {
         double minimumSum = Double.POSITIVE_INFINITY;
         SLNode centroidCandidate = null;
 
-        for (SLNode nodeA : nodes) {
-
-            double sum = 0;
-
-            // 존재하는 다른 모든 노드에 대한 거리를 계산하여 더한다.
-            for (SLNode nodeB : nodes) {
-                if (nodeA.equals(nodeB)) continue;
+        // 존재하는 다른 모든 노드에 대한 거리의 합이 가장 작은 노드 (동점이면 리스트에서 앞선 노드)
+        for (SLNode node : nodes) {
 
-                sum += context.wordNodes.getDistance(nodeA, nodeB);
-            }
+            double sum = distanceSums.get(node)[0];
 
             if (sum < minimumSum) {
                 minimumSum = sum;
-                centroidCandidate = nodeA;
+                centroidCandidate = node;
             }
         }
         centroid = centroidCandidate;
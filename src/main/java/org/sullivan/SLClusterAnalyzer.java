@@ -17,8 +17,9 @@
 package org.sullivan;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.PriorityQueue;
 
 /**
  * 클러스터 분석을 수행하는 클래스
@@ -26,6 +27,9 @@ import java.util.List;
  * <p>
  * 추가로 최소 threshold와, min-cluster수에 제한을 두었다.
  * 초기에는 많은 단어에 대해 데이터가 부족할 것이기 때문이다.
+ * <p>
+ * 병합 후보 쌍을 우선순위 큐에 넣고 가장 가까운 쌍부터 병합하므로 O(n^2 log n)에 동작하며,
+ * 같은 노드 리스트에 대해서는 항상 같은 결과(dendrogram)를 만든다.
  */
 public class SLClusterAnalyzer {
 
@@ -35,13 +39,15 @@ public class SLClusterAnalyzer {
     public SLClusterGroup context;
 
     /**
-     * 고립군으로 분류된 클러스터 리스트 (프로세싱에서만 사용되는 임시 value)
+     * 마지막 전분석의 병합 기록.
+     * 0부터 n-1번 클러스터는 context.nodes 순서의 단위 클러스터이고,
+     * 이후 병합으로 생성된 클러스터는 n번부터 순서대로 번호가 매겨진다.
      */
-    private List<SLCluster> isolatedClusters;
+    public List<SLMergeStep> dendrogram;
 
     public SLClusterAnalyzer(SLClusterGroup context) {
         this.context = context;
-        this.isolatedClusters = new LinkedList<>();
+        this.dendrogram = new ArrayList<>();
     }
 
     /**
@@ -49,15 +55,23 @@ public class SLClusterAnalyzer {
      */
     public void initialize() {
 
-        // 초기화
-        context.clusters.clear();
-        isolatedClusters.clear();
+        List<SLCluster> clusters = new ArrayList<>();
 
         for (SLNode node : context.nodes) {
-            context.clusters.add(node.asCluster(context));
+            clusters.add(node.asCluster(context));
         }
 
-        agglomerate();
+        clusters = agglomerate(clusters);
+
+        // 분석이 끝난 결과만 반영한다.
+        context.clusters.clear();
+
+        for (SLCluster cluster : clusters) {
+            context.clusters.add(cluster);
+        }
+
+        context.markModified();
+        context.notifyClustersReset();
     }
 
     /**
@@ -78,18 +92,25 @@ public class SLClusterAnalyzer {
         // 가장 가까운 클러스터와의 거리가 threshold보다 작으면 합친다.
         SLCluster closestCluster = context.clusters.getClosestElement(cluster);
 
-        if (closestCluster.getDistance(cluster) < SLCluster.DISTANCE_THRESHOLD) {
+        if (closestCluster != null && closestCluster.getDistance(cluster) < SLCluster.DISTANCE_THRESHOLD) {
             context.clusters.remove(cluster);
             closestCluster.addNode(node);
 
+            // centroid가 바뀌었을 수 있으므로 캐시된 클러스터 간 거리를 폐기한다.
+            context.clusters.update(closestCluster);
+            context.notifyClusterChanged(closestCluster);
+
             return closestCluster;
         }
 
+        context.notifyClusterAdded(cluster);
+
         return cluster;
     }
 
     /**
      * 노드를 제거한 후 재 분석한다.
+     * 노드가 빠져 비게 된 클러스터는 리스트에서 제거한다.
      *
      * @param node
      */
@@ -97,65 +118,167 @@ public class SLClusterAnalyzer {
 
         // 이 노드를 갖고 있는 클러스터를 찾은 후 리스트에서 제거한다.
         for (SLCluster cluster : context.clusters.getList()) {
-            if (cluster.getNodes().contains(node))
+            if (cluster.getNodes().contains(node)) {
                 cluster.removeNode(node);
+
+                if (cluster.getNodes().isEmpty()) {
+                    context.clusters.remove(cluster);
+                    context.notifyClusterRemoved(cluster);
+                } else {
+                    context.clusters.update(cluster);
+                    context.notifyClusterChanged(cluster);
+                }
+            }
         }
     }
 
     /**
      * 한계에 이를 때까지 내부를 자가 응집한다.
+     * <p>
+     * 거리가 DISTANCE_THRESHOLD 이하인 쌍만 큐에 넣고, 가장 가까운 쌍부터 병합한다.
+     * 큐에서 꺼낸 쌍 중 이미 병합된 클러스터가 포함된 쌍은 무시한다.
+     * 거리가 같다면 번호가 작은 쌍을 먼저 병합한다.
      *
-     * @return
+     * @param initialClusters 단위 클러스터들
+     * @return 병합이 끝난 클러스터들
      */
-    private void agglomerate() {
+    private List<SLCluster> agglomerate(List<SLCluster> initialClusters) {
+
+        dendrogram.clear();
+
+        // 번호 -> 클러스터
+        List<SLCluster> clusters = new ArrayList<>(initialClusters);
+        BitSet alive = new BitSet();
+        alive.set(0, clusters.size());
+
+        int aliveClusters = clusters.size();
+
+        // 클러스터 사이즈가 지나치게 작아지는 것을 막는다.
+        double minimumClusters = Math.max(Math.sqrt(context.nodes.size() / 2), 3);
 
         // 클러스터의 크기가 1이라면 분석할 필요가 없다.
-        if (context.clusters.size() <= 1)
-            return;
+        if (aliveClusters <= 1)
+            return clusters;
+
+        PriorityQueue<SLMergeCandidate> candidates = new PriorityQueue<>();
+
+        for (int i = 0; i < clusters.size(); i++) {
+            for (int j = i + 1; j < clusters.size(); j++) {
+                offer(candidates, clusters, i, j);
+            }
+        }
+
+        while (!candidates.isEmpty()) {
+
+            SLMergeCandidate candidate = candidates.poll();
+
+            // 이미 다른 클러스터에 병합되었다.
+            if (!alive.get(candidate.left) || !alive.get(candidate.right))
+                continue;
+
+            // 두 클러스터를 병합한 후, 등록한다.
+            SLCluster mergedCluster = clusters.get(candidate.left).merge(clusters.get(candidate.right));
 
-        // 모든 클러스터가 isolated 상태라면 분석을 종료한다.
-        if (isolatedClusters.size() == context.clusters.size())
-            return;
+            int merged = clusters.size();
+            clusters.add(mergedCluster);
 
-        // 임의의 노드를 하나 선택한다.
-        SLCluster cluster = context.clusters.getRandomElement(isolatedClusters);
+            alive.clear(candidate.left);
+            alive.clear(candidate.right);
+            alive.set(merged);
+            aliveClusters--;
 
-        // 최소 쌍방-인접 클러스터를 찾는다.
-        SLCluster adjacentCluster = context.clusters.getAdjacentElement(cluster);
+            dendrogram.add(new SLMergeStep(candidate.left, candidate.right, merged, candidate.distance));
 
-        // 고립된 클러스터라면, 다음에 선택되지 않도록 플래그에 추가해 준다.
-        if (adjacentCluster == null) {
-            isolatedClusters.add(cluster);
-            agglomerate();
-            return;
+            if (aliveClusters <= minimumClusters)
+                break;
+
+            // 새 클러스터와 남은 클러스터들 간의 후보를 추가한다.
+            for (int i = alive.nextSetBit(0); i >= 0 && i < merged; i = alive.nextSetBit(i + 1)) {
+                offer(candidates, clusters, i, merged);
+            }
+        }
+
+        List<SLCluster> result = new ArrayList<>(aliveClusters);
+
+        for (int i = alive.nextSetBit(0); i >= 0; i = alive.nextSetBit(i + 1)) {
+            result.add(clusters.get(i));
         }
 
-        // 피선택된 클러스터의 플래그를 제거한다. (없을 수도 있음)
-        isolatedClusters.remove(adjacentCluster);
+        return result;
+    }
+
+    /**
+     * 병합 가능한 거리라면 후보로 추가한다.
+     *
+     * @param candidates
+     * @param clusters
+     * @param left
+     * @param right
+     */
+    private void offer(PriorityQueue<SLMergeCandidate> candidates, List<SLCluster> clusters, int left, int right) {
+
+        double distance = clusters.get(left).getDistance(clusters.get(right));
 
-        // 두 클러스터를 합치는 것이 적합한지 검사
         // TODO: 클러스터 분산도도 체크한다.
+        if (distance <= SLCluster.DISTANCE_THRESHOLD)
+            candidates.add(new SLMergeCandidate(left, right, distance));
+    }
 
-        if (cluster.getDistance(adjacentCluster) > SLCluster.DISTANCE_THRESHOLD || false) {
+    /**
+     * 병합 기록 하나
+     */
+    public static class SLMergeStep {
+
+        /**
+         * 병합된 두 클러스터의 번호
+         */
+        public final int left;
+        public final int right;
+
+        /**
+         * 병합으로 생성된 클러스터의 번호
+         */
+        public final int merged;
+
+        /**
+         * 병합 시점의 두 클러스터 간 거리
+         */
+        public final double distance;
+
+        public SLMergeStep(int left, int right, int merged, double distance) {
+            this.left = left;
+            this.right = right;
+            this.merged = merged;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * 병합 후보 쌍. 거리, 번호 순으로 정렬된다.
+     */
+    private static class SLMergeCandidate implements Comparable<SLMergeCandidate> {
 
-            // 적절하지 않다면 두 클러스터 모두 고립 클러스터로 등록한다.
-            isolatedClusters.add(cluster);
-            isolatedClusters.add(adjacentCluster);
+        public final int left;
+        public final int right;
+        public final double distance;
 
-            agglomerate();
-            return;
+        public SLMergeCandidate(int left, int right, double distance) {
+            this.left = left;
+            this.right = right;
+            this.distance = distance;
         }
-        // 두 클러스터를 병합한 후, 등록한다.
-        SLCluster mergedCluster = cluster.merge(adjacentCluster);
 
-        context.clusters.remove(cluster);
-        context.clusters.remove(adjacentCluster);
-        context.clusters.add(mergedCluster);
+        @Override
+        public int compareTo(SLMergeCandidate candidate) {
 
-        // 클러스터 사이즈가 지나치게 작아지는 것을 막는다.
-        if (context.clusters.size() <= Math.max(Math.sqrt(context.nodes.size() / 2), 3))
-            return;
+            int comparison = Double.compare(distance, candidate.distance);
 
-        agglomerate();
+            if (comparison == 0)
+                comparison = Integer.compare(left, candidate.left);
+            if (comparison == 0)
+                comparison = Integer.compare(right, candidate.right);
+
+            return comparison;
+        }
     }
 }
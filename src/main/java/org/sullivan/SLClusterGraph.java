@@ -0,0 +1,208 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 교정 경로 탐색에 사용되는 클러스터 간 거리 그래프
+ * <p>
+ * 실패사례 클러스터 간 간선은 실패사례 클러스터 맵에 캐시되고,
+ * 실패사례 클러스터에서 성공사례 레이어로 나가는 간선(가장 가까운 성공사례 클러스터)은 여기서 캐시된다.
+ * 두 클러스터군의 변화 이벤트를 받아 바뀐 클러스터와 관련된 간선만 갱신하므로,
+ * 경로 탐색 중 간선 조회는 상수 시간이다.
+ */
+public class SLClusterGraph implements SLMetric<SLCluster>, SLClusterGroupListener {
+
+    private SLClusterGroup failure;
+    private SLClusterGroup success;
+
+    /**
+     * 실패사례 클러스터별 가장 가까운 성공사례 클러스터와 그 거리
+     */
+    private Map<SLCluster, SLCluster> sinks;
+    private Map<SLCluster, Double> exits;
+
+    public SLClusterGraph(SLClusterGroup failure, SLClusterGroup success) {
+
+        this.failure = failure;
+        this.success = success;
+
+        // 여러 평가가 동시에 간선을 캐시할 수 있다.
+        this.sinks = new ConcurrentHashMap<>();
+        this.exits = new ConcurrentHashMap<>();
+
+        failure.addEventListener(this);
+
+        // 성공사례 클러스터의 변화는 모든 실패사례 클러스터의 출구에 영향을 준다.
+        success.addEventListener(new SLClusterGroupListener() {
+            @Override
+            public void onClusterAdded(SLCluster cluster) {
+                onSuccessClusterChanged(cluster);
+            }
+
+            @Override
+            public void onClusterChanged(SLCluster cluster) {
+                onSuccessClusterChanged(cluster);
+            }
+
+            @Override
+            public void onClusterRemoved(SLCluster cluster) {
+                for (SLCluster failureCluster : new ArrayList<>(sinks.keySet())) {
+                    if (sinks.get(failureCluster) == cluster)
+                        forget(failureCluster);
+                }
+            }
+
+            @Override
+            public void onClustersReset() {
+                sinks.clear();
+                exits.clear();
+            }
+        });
+    }
+
+    /**
+     * 두 클러스터 간 간선의 가중치를 리턴한다.
+     *
+     * @param cluster1
+     * @param cluster2
+     * @return
+     */
+    @Override
+    public double getDistance(SLCluster cluster1, SLCluster cluster2) {
+
+        if (cluster1.getContext() == failure && cluster2.getContext() == failure)
+            return failure.clusters.getDistance(cluster1, cluster2);
+
+        if (cluster1.getContext() == failure && getSink(cluster1) == cluster2)
+            return getExit(cluster1);
+
+        if (cluster2.getContext() == failure && getSink(cluster2) == cluster1)
+            return getExit(cluster2);
+
+        // 레이어에 속하지 않은 임시 클러스터(채점용)는 자신의 노드 맵으로 거리를 구한다.
+        if (cluster2.getContext() != failure && cluster2.getContext() != success)
+            return cluster2.getDistance(cluster1);
+
+        return cluster1.getDistance(cluster2);
+    }
+
+    /**
+     * 실패사례 클러스터와 가장 가까운 성공사례 클러스터를 리턴한다.
+     *
+     * @param cluster
+     * @return
+     */
+    public SLCluster getSink(SLCluster cluster) {
+
+        // 실패사례 레이어의 클러스터가 아니라면 갱신 이벤트를 받을 수 없으므로 캐시하지 않는다.
+        if (cluster.getContext() != failure)
+            return success.clusters.getClosestElement(cluster);
+
+        if (!sinks.containsKey(cluster)) {
+
+            SLCluster sink = success.clusters.getClosestElement(cluster);
+
+            if (sink == null)
+                return null;
+
+            // 출구가 먼저 기록되어야 getExit()이 항상 값을 찾을 수 있다.
+            exits.put(cluster, cluster.getDistance(sink));
+            sinks.put(cluster, sink);
+        }
+
+        return sinks.get(cluster);
+    }
+
+    /**
+     * 실패사례 클러스터에서 가장 가까운 성공사례 클러스터까지의 거리를 리턴한다.
+     *
+     * @param cluster
+     * @return
+     */
+    public double getExit(SLCluster cluster) {
+
+        SLCluster sink = getSink(cluster);
+
+        if (sink == null)
+            return Double.POSITIVE_INFINITY;
+
+        if (cluster.getContext() != failure)
+            return cluster.getDistance(sink);
+
+        return exits.get(cluster);
+    }
+
+    /**
+     * 성공사례 클러스터가 추가되거나 centroid가 바뀌었을 때, 기존 출구보다 가까워진 경우만 교체한다.
+     * 출구였던 클러스터가 멀어졌다면 다시 계산한다.
+     *
+     * @param cluster
+     */
+    private void onSuccessClusterChanged(SLCluster cluster) {
+
+        for (SLCluster failureCluster : new ArrayList<>(sinks.keySet())) {
+
+            double distance = failureCluster.getDistance(cluster);
+            double exit = exits.get(failureCluster);
+
+            if (sinks.get(failureCluster) == cluster) {
+                if (distance <= exit)
+                    exits.put(failureCluster, distance);
+                else
+                    forget(failureCluster);
+            } else if (distance < exit) {
+                sinks.put(failureCluster, cluster);
+                exits.put(failureCluster, distance);
+            }
+        }
+    }
+
+    /**
+     * 실패사례 클러스터의 출구를 폐기한다. 다음 조회 때 다시 계산된다.
+     *
+     * @param cluster
+     */
+    private void forget(SLCluster cluster) {
+        sinks.remove(cluster);
+        exits.remove(cluster);
+    }
+
+    @Override
+    public void onClusterAdded(SLCluster cluster) {
+        forget(cluster);
+    }
+
+    @Override
+    public void onClusterChanged(SLCluster cluster) {
+        forget(cluster);
+    }
+
+    @Override
+    public void onClusterRemoved(SLCluster cluster) {
+        forget(cluster);
+    }
+
+    @Override
+    public void onClustersReset() {
+        sinks.clear();
+        exits.clear();
+    }
+}
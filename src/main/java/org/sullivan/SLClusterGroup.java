@@ -18,6 +18,7 @@ package org.sullivan;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 클러스터 간 비교 처리가 용이하도록 클러스터군의 정보를 종합하는 클래스
@@ -47,6 +48,22 @@ public class SLClusterGroup {
      */
     public SLDistanceMap<SLCluster> clusters;
 
+    /**
+     * 클러스터 구성이 바뀔 때마다 증가하는 값. 클러스터 구성에 의존하는 캐시의 유효성 검사에 사용된다.
+     */
+    private AtomicLong version;
+
+    /**
+     * 클러스터 구성 변화를 받는 리스너들
+     */
+    private List<SLClusterGroupListener> listeners;
+
+    /**
+     * 워드 모델 업데이터. description 요청 등 모델 밖으로 나가는 변경도 이 큐를 거친다.
+     * 채점용 임시 그룹처럼 워드에 속하지 않은 그룹은 null이다.
+     */
+    public SLModelUpdater updater;
+
     public SLClusterGroup(SLDistanceMap<SLNode> distanceCache) {
 
         this.wordNodes = distanceCache;
@@ -54,6 +71,73 @@ public class SLClusterGroup {
 
         this.analyzer = new SLClusterAnalyzer(this);
         this.clusters = new SLDistanceMap<>();
+        this.version = new AtomicLong();
+        this.listeners = new ArrayList<>();
+    }
+
+    /**
+     * 클러스터 구성 변화를 받기 위한 리스너를 추가한다.
+     *
+     * @param listener
+     */
+    public void addEventListener(SLClusterGroupListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * 리스너를 제거한다.
+     *
+     * @param listener
+     */
+    public void removeEventListener(SLClusterGroupListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    void notifyClusterAdded(SLCluster cluster) {
+        for (SLClusterGroupListener listener : listeners)
+            listener.onClusterAdded(cluster);
+    }
+
+    void notifyClusterChanged(SLCluster cluster) {
+        for (SLClusterGroupListener listener : listeners)
+            listener.onClusterChanged(cluster);
+    }
+
+    void notifyClusterRemoved(SLCluster cluster) {
+        for (SLClusterGroupListener listener : listeners)
+            listener.onClusterRemoved(cluster);
+    }
+
+    void notifyClustersReset() {
+        for (SLClusterGroupListener listener : listeners)
+            listener.onClustersReset();
+    }
+
+    /**
+     * 클러스터에 대한 description을 사용자에게 요청한다.
+     * 요청은 업데이터 스레드에서 처리되며, 워드에 속하지 않은 그룹의 클러스터는 요청하지 않는다.
+     *
+     * @param cluster
+     */
+    void requestDescription(SLCluster cluster) {
+        if (updater != null)
+            updater.submit(() -> SLDescriptionRequest.request(cluster));
+    }
+
+    /**
+     * 클러스터 구성의 현재 버전을 리턴한다.
+     *
+     * @return
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 클러스터 구성이 바뀌었음을 표시한다.
+     */
+    public void markModified() {
+        version.incrementAndGet();
     }
 
     /**
@@ -63,14 +147,18 @@ public class SLClusterGroup {
      */
     public SLCluster addNode(SLNode node) {
 
-        // 워드 노드에 추가한다.
-        wordNodes.add(node);
+        // 워드 노드에 추가한다. 이미 있다면 캐시된 거리를 유지한다.
+        if (!wordNodes.hasElement(node))
+            wordNodes.add(node);
 
         // 그룹내 노드 리스트에 추가한다.
         nodes.add(node);
 
         // 분석한다.
-        return analyzer.insert(node);
+        SLCluster cluster = analyzer.insert(node);
+        markModified();
+
+        return cluster;
     }
 
     /**
@@ -86,6 +174,8 @@ public class SLClusterGroup {
 
         // 전체 워드 캐시에서 제거한다.
         wordNodes.remove(node);
+
+        markModified();
     }
 
     /**
@@ -0,0 +1,49 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+/**
+ * 클러스터군의 구성 변화를 받는 리스너
+ */
+public interface SLClusterGroupListener {
+
+    /**
+     * 새 클러스터가 추가되었을 때 호출된다.
+     *
+     * @param cluster
+     */
+    void onClusterAdded(SLCluster cluster);
+
+    /**
+     * 클러스터의 구성 노드(와 centroid)가 바뀌었을 때 호출된다.
+     *
+     * @param cluster
+     */
+    void onClusterChanged(SLCluster cluster);
+
+    /**
+     * 클러스터가 제거되었을 때 호출된다.
+     *
+     * @param cluster
+     */
+    void onClusterRemoved(SLCluster cluster);
+
+    /**
+     * 클러스터군 전체가 다시 분석되었을 때 호출된다.
+     */
+    void onClustersReset();
+}
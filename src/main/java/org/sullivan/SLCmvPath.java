@@ -16,6 +16,7 @@
 
 package org.sullivan;
 
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -34,6 +35,11 @@ public class SLCmvPath<T extends SLMeasurable<T>> {
      */
     public List<T> steps;
 
+    /**
+     * 계산된 코스트 (경로가 바뀌면 폐기된다)
+     */
+    private double cost = Double.NaN;
+
     public SLCmvPath() {
         steps = new LinkedList<>();
     }
@@ -46,6 +52,7 @@ public class SLCmvPath<T extends SLMeasurable<T>> {
      */
     public SLCmvPath<T> addStep(T step) {
         this.steps.add(step);
+        this.cost = Double.NaN;
         return this;
     }
 
@@ -56,6 +63,7 @@ public class SLCmvPath<T extends SLMeasurable<T>> {
      */
     public SLCmvPath<T> addStepToFront(T step) {
         this.steps.add(0, step);
+        this.cost = Double.NaN;
         return this;
     }
 
@@ -67,6 +75,7 @@ public class SLCmvPath<T extends SLMeasurable<T>> {
      */
     public SLCmvPath<T> removeStep(T step) {
         this.steps.remove(step);
+        this.cost = Double.NaN;
         return this;
     }
 
@@ -78,6 +87,7 @@ public class SLCmvPath<T extends SLMeasurable<T>> {
      */
     public SLCmvPath<T> removeStepAt(int index) {
         this.steps.remove(index);
+        this.cost = Double.NaN;
         return this;
     }
 
@@ -88,6 +98,21 @@ public class SLCmvPath<T extends SLMeasurable<T>> {
      * @return
      */
     public double getCost() {
+        return getCost(new SLMetric<T>() {
+            @Override
+            public double getDistance(T element1, T element2) {
+                return element1.getDistance(element2);
+            }
+        });
+    }
+
+    /**
+     * 주어진 간선 가중치로 경로의 코스트를 계산한다.
+     *
+     * @param metric
+     * @return
+     */
+    public double getCost(SLMetric<T> metric) {
 
         // 만약 경로가 하나라면 코스트를 구할 수 없다.
         if (steps.size()  < 2) {
@@ -95,6 +120,9 @@ public class SLCmvPath<T extends SLMeasurable<T>> {
             return -1;
         }
 
+        if (!Double.isNaN(cost))
+            return cost;
+
         double totalCost = 0;
 
         /**
@@ -102,9 +130,17 @@ public class SLCmvPath<T extends SLMeasurable<T>> {
          *
          * COST = P * SQRT(N) * MAX(S1, S2, S3, ..., SN);
          */
-        for (int i = 0; i < steps.size() - 1; i++)
-            totalCost = Math.max(totalCost, steps.get(i).getDistance(steps.get(i + 1)));
+        Iterator<T> iterator = steps.iterator();
+        T previous = iterator.next();
+
+        while (iterator.hasNext()) {
+            T current = iterator.next();
+            totalCost = Math.max(totalCost, metric.getDistance(previous, current));
+            previous = current;
+        }
+
+        cost = correctionCoefficient * Math.sqrt(steps.size()) * totalCost;
 
-        return correctionCoefficient * Math.sqrt(steps.size()) * totalCost;
+        return cost;
     }
 }
@@ -0,0 +1,191 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+import java.util.Arrays;
+
+/**
+ * 거리를 상삼각 행렬 형태의 double 배열 하나에 저장하는 테이블
+ * <p>
+ * 슬롯 i <= j 쌍은 j * (j + 1) / 2 + i 번째 칸에 저장되므로 한 쌍당 8바이트만 사용하고,
+ * 조회는 O(1)이다. 열 단위로 배치되어 있어 슬롯이 늘어나도 기존 칸의 위치는 바뀌지 않는다.
+ * 슬롯이 조밀하게 재활용될 때 (대부분의 쌍이 계산되는 워드 노드 캐시 등) 적합하다.
+ */
+public class SLDenseDistanceTable implements SLDistanceTable {
+
+    /**
+     * 배열 하나에 담을 수 있는 최대 슬롯 수. (65535 * 65536 / 2 칸)
+     */
+    public static final int MAXIMUM_SLOTS = 65535;
+
+    /**
+     * 거리 배열이 사용할 수 있는 메모리 (바이트).
+     * 배열을 늘리는 동안에는 이전 배열과 새 배열이 함께 존재하므로 둘을 합한 크기가 이 값을 넘지 않아야 한다.
+     */
+    public static long MEMORY_BUDGET = Runtime.getRuntime().maxMemory() / 4;
+
+    /**
+     * 저장된 거리. 계산되지 않은 칸은 NaN이다.
+     */
+    private volatile double[] distances;
+
+    /**
+     * 현재 수용 가능한 슬롯 수
+     */
+    private int capacity;
+
+    public SLDenseDistanceTable() {
+        clear();
+    }
+
+    @Override
+    public double get(int slot1, int slot2) {
+
+        int index = getIndex(slot1, slot2);
+        double[] distances = this.distances;
+
+        if (index >= distances.length)
+            return Double.NaN;
+
+        return distances[index];
+    }
+
+    @Override
+    public void put(int slot1, int slot2, double distance) {
+
+        int index = getIndex(slot1, slot2);
+        double[] distances = this.distances;
+
+        if (index < distances.length)
+            distances[index] = distance;
+    }
+
+    @Override
+    public synchronized void ensureCapacity(int slot) {
+
+        if (slot < capacity) return;
+
+        int maximumCapacity = getMaximumCapacity();
+
+        if (slot >= maximumCapacity)
+            throw new IllegalStateException("Slot " + slot + " exceeds dense distance table limit (" + maximumCapacity + ").");
+
+        // 배열 크기는 슬롯 수의 제곱에 비례하므로 슬롯 수는 1.5배씩만 늘린다.
+        int newCapacity = (int) Math.min(Math.max(slot + 1L, capacity + capacity / 2L), maximumCapacity);
+
+        double[] newDistances = Arrays.copyOf(distances, getLength(newCapacity));
+        Arrays.fill(newDistances, distances.length, newDistances.length, Double.NaN);
+
+        capacity = newCapacity;
+        distances = newDistances;
+    }
+
+    /**
+     * 메모리 예산 안에서 해당 슬롯 번호까지 저장할 수 있는지 확인한다.
+     *
+     * @param slot
+     * @return
+     */
+    public synchronized boolean canHold(int slot) {
+        return slot < capacity || slot < getMaximumCapacity();
+    }
+
+    /**
+     * 현재 배열을 유지한 채로 새로 할당할 수 있는 가장 큰 슬롯 수
+     *
+     * @return
+     */
+    private int getMaximumCapacity() {
+
+        long cells = Math.max(MEMORY_BUDGET / Double.BYTES - distances.length, 0);
+
+        // slots * (slots + 1) / 2 <= cells
+        long slots = (long) ((Math.sqrt(8d * cells + 1) - 1) / 2);
+
+        while (slots > 0 && slots * (slots + 1) / 2 > cells)
+            slots--;
+        while ((slots + 1) * (slots + 2) / 2 <= cells)
+            slots++;
+
+        return (int) Math.min(slots, MAXIMUM_SLOTS);
+    }
+
+    @Override
+    public synchronized void remove(int slot) {
+
+        if (slot >= capacity) return;
+
+        double[] distances = this.distances;
+
+        // slot 열 (i <= slot)
+        int column = getLength(slot);
+        Arrays.fill(distances, column, column + slot + 1, Double.NaN);
+
+        // slot 행 (slot < j)
+        for (int j = slot + 1; j < capacity; j++)
+            distances[getLength(j) + slot] = Double.NaN;
+    }
+
+    /**
+     * 저장된 모든 거리를 다른 테이블로 옮겨 담는다.
+     *
+     * @param table
+     */
+    public synchronized void copyTo(SLDistanceTable table) {
+
+        double[] distances = this.distances;
+
+        for (int j = 0; j < capacity; j++) {
+            int column = getLength(j);
+            for (int i = 0; i <= j; i++) {
+                double distance = distances[column + i];
+                if (!Double.isNaN(distance))
+                    table.put(i, j, distance);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        capacity = 16;
+        distances = new double[getLength(capacity)];
+        Arrays.fill(distances, Double.NaN);
+    }
+
+    /**
+     * 슬롯 쌍이 저장되는 위치
+     *
+     * @param slot1
+     * @param slot2
+     * @return
+     */
+    private static int getIndex(int slot1, int slot2) {
+        int low = Math.min(slot1, slot2);
+        int high = Math.max(slot1, slot2);
+        return getLength(high) + low;
+    }
+
+    /**
+     * 슬롯 수에 필요한 배열 길이 (= 그 슬롯 열이 시작되는 위치)
+     *
+     * @param slots
+     * @return
+     */
+    private static int getLength(int slots) {
+        return (int) ((long) slots * (slots + 1) / 2);
+    }
+}
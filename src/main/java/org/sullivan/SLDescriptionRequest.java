@@ -16,6 +16,7 @@
 
 package org.sullivan;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,7 +52,13 @@ public class SLDescriptionRequest {
      */
     public void play(int times) {
 
-        List<SLNode> nodes = targetCluster.getNodes();
+        // 업데이트 스레드가 노드 리스트를 바꾸는 중일 수 있으므로 read lock 안에서 복사해 둔다.
+        SLModelUpdater updater = targetCluster.getContext().updater;
+        List<SLNode> nodes = updater != null
+                ? updater.read(() -> new ArrayList<>(targetCluster.getNodes()))
+                : new ArrayList<>(targetCluster.getNodes());
+
+        if (nodes.isEmpty()) return;
 
         for (int i = 0; i < times; i++) {
             targetNode = nodes.get((int) Math.round((nodes.size() - 1) * Math.random()));
@@ -66,14 +73,24 @@ public class SLDescriptionRequest {
      */
     public void answer(String response) {
         if (targetNode == null) return;
-        targetNode.descriptions.add(new SLDescription(response, new SLDescription.SLDescriptionInfo()));
+
+        SLNode node = targetNode;
+        SLDescription description = new SLDescription(response, new SLDescription.SLDescriptionInfo());
+
+        // description도 모델 변경이므로 업데이트 큐를 거친다.
+        SLModelUpdater updater = targetCluster.getContext().updater;
+        if (updater != null) {
+            updater.submitAndWait(() -> node.descriptions.add(description));
+        } else {
+            node.descriptions.add(description);
+        }
     }
 
     /**
      * 요청 우선순위. 급한 request를 우선 처리하기 위함.
      */
     private static Map<SLCluster, Integer> requestPriority;
-    public static int numberOfRequests = 0;
+    public static volatile int numberOfRequests = 0;
 
     static {
         requestPriority = new HashMap<>();
@@ -84,7 +101,7 @@ public class SLDescriptionRequest {
      *
      * @param cluster
      */
-    public static void request(SLCluster cluster) {
+    public static synchronized void request(SLCluster cluster) {
 
         if (!requestPriority.containsKey(cluster))
             requestPriority.put(cluster, 0);
@@ -99,7 +116,7 @@ public class SLDescriptionRequest {
      *
      * @return
      */
-    public static SLDescriptionRequest resolve() {
+    public static synchronized SLDescriptionRequest resolve() {
 
         // 우선순위 분석.
         // 모델: description density * sqrt(number of requests)
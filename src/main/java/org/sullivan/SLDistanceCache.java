@@ -0,0 +1,262 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 워드의 노드 간 거리를 디스크(*.dist)에 보관하는 클래스
+ * <p>
+ * 파일은 헤더(특징 추출 파라미터, DTW 전역 제약, 프레임 거리 커널), 노드 테이블(uid, 음성 파일의 크기와 수정 시각),
+ * 그리고 (노드 번호, 노드 번호, 거리) 쌍의 나열로 이루어진다.
+ * 헤더가 현재 설정과 다르면 파일 전체를, 음성 파일이 바뀐 노드는 그 노드가 포함된 쌍만 무시한다.
+ */
+public class SLDistanceCache {
+
+    private static final int MAGIC = 0x534c4443; // "SLDC"
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * 쌍 하나의 크기 (int, int, double)
+     */
+    private static final int PAIR_SIZE = 16;
+
+    /**
+     * 매핑된 파일
+     */
+    private MappedByteBuffer buffer;
+
+    /**
+     * 쌍 데이터가 시작되는 위치
+     */
+    private int pairsOffset;
+
+    private long pairCount;
+
+    /**
+     * 노드 테이블 (파일 내 번호 순)
+     */
+    private int[] uids;
+    private long[] sourceLengths;
+    private long[] sourceModifiedTimes;
+
+    private SLDistanceCache() {
+    }
+
+    /**
+     * 워드의 캐시된 노드 간 거리를 파일로 저장한다.
+     *
+     * @param word
+     * @param file
+     */
+    public static void export(SLWord word, File file) {
+
+        List<SLNode> nodes = new ArrayList<>();
+        for (SLNode node : word.nodes.getList()) {
+            if (node.info != null && node.info.source != null && node.info.source.exists())
+                nodes.add(node);
+        }
+
+        File temporaryFile = new File(file.getPath() + ".tmp");
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeUTF(getSignature(word));
+
+            // 노드 테이블
+            output.writeInt(nodes.size());
+            for (SLNode node : nodes) {
+                output.writeInt(node.uid);
+                output.writeLong(node.info.source.length());
+                output.writeLong(node.info.source.lastModified());
+            }
+
+            // 캐시된 쌍만 기록한다. 쌍의 수는 나중에 알 수 있으므로 끝에 기록한다.
+            long pairCount = 0;
+            for (int i = 0; i < nodes.size(); i++) {
+                for (int j = i + 1; j < nodes.size(); j++) {
+
+                    double distance = word.nodes.getCachedDistance(nodes.get(i), nodes.get(j));
+                    if (Double.isNaN(distance)) continue;
+
+                    output.writeInt(i);
+                    output.writeInt(j);
+                    output.writeDouble(distance);
+                    pairCount++;
+                }
+            }
+            output.writeLong(pairCount);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 거리 캐시 파일을 연다. 파일이 없거나 현재 워드 설정과 맞지 않으면 null을 리턴한다.
+     *
+     * @param word
+     * @param file
+     * @return
+     */
+    public static SLDistanceCache open(SLWord word, File file) {
+
+        if (!file.exists())
+            return null;
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+
+            SLDistanceCache cache = new SLDistanceCache();
+            cache.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            return cache.readHeader(getSignature(word)) ? cache : null;
+
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Warning: Distance cache '" + file.getPath() + "' is unreadable.");
+            return null;
+        }
+    }
+
+    /**
+     * 헤더와 노드 테이블을 읽는다.
+     *
+     * @param signature
+     * @return 현재 설정과 맞는지 여부
+     */
+    private boolean readHeader(String signature) {
+
+        ByteBuffer header = buffer.duplicate();
+
+        if (header.remaining() < 8 + Long.BYTES)
+            return false;
+
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION)
+            return false;
+
+        // 쌍의 수는 파일 끝에 있다.
+        pairCount = buffer.getLong(buffer.limit() - Long.BYTES);
+
+        byte[] signatureBytes = new byte[header.getShort() & 0xffff];
+        header.get(signatureBytes);
+
+        if (!signature.equals(new String(signatureBytes, StandardCharsets.UTF_8)))
+            return false;
+
+        int nodeCount = header.getInt();
+
+        uids = new int[nodeCount];
+        sourceLengths = new long[nodeCount];
+        sourceModifiedTimes = new long[nodeCount];
+
+        for (int i = 0; i < nodeCount; i++) {
+            uids[i] = header.getInt();
+            sourceLengths[i] = header.getLong();
+            sourceModifiedTimes[i] = header.getLong();
+        }
+
+        pairsOffset = header.position();
+
+        return pairsOffset + pairCount * PAIR_SIZE + Long.BYTES == buffer.limit();
+    }
+
+    /**
+     * 워드 노드 맵에 있는 노드들 사이의 거리를 복원한다.
+     * 음성 파일이 저장 당시와 달라진 노드의 거리는 복원하지 않는다.
+     *
+     * @param word
+     * @return 복원된 쌍의 수
+     */
+    public long restore(SLWord word) {
+
+        Map<Integer, SLNode> nodesByUid = new HashMap<>();
+        for (SLNode node : word.nodes.getList())
+            nodesByUid.put(node.uid, node);
+
+        // 파일 내 번호 -> 유효한 노드 (무효하면 null)
+        SLNode[] nodes = new SLNode[uids.length];
+
+        for (int i = 0; i < uids.length; i++) {
+
+            SLNode node = nodesByUid.get(uids[i]);
+
+            if (node == null || node.info == null || node.info.source == null)
+                continue;
+
+            if (node.info.source.length() != sourceLengths[i] || node.info.source.lastModified() != sourceModifiedTimes[i])
+                continue;
+
+            nodes[i] = node;
+        }
+
+        long restored = 0;
+
+        for (long k = 0; k < pairCount; k++) {
+
+            int position = (int) (pairsOffset + k * PAIR_SIZE);
+
+            int i = buffer.getInt(position);
+            int j = buffer.getInt(position + 4);
+
+            if (i < 0 || j < 0 || i >= nodes.length || j >= nodes.length)
+                continue;
+
+            if (nodes[i] == null || nodes[j] == null)
+                continue;
+
+            word.nodes.putDistance(nodes[i], nodes[j], buffer.getDouble(position + 8));
+            restored++;
+        }
+
+        return restored;
+    }
+
+    /**
+     * 캐시된 거리가 유효하기 위해 같아야 하는 설정들
+     *
+     * @param word
+     * @return
+     */
+    private static String getSignature(SLWord word) {
+        return word.featureProfile.getSignature() + "/" + word.warpingWindow.type.label + ":" + word.warpingWindow.ratio
+                + "/" + SLDtw.kernel.getId();
+    }
+}
@@ -17,16 +17,105 @@
 package org.sullivan;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * 계산 코스트가 높은 거리 데이터를 캐시해주는 클래스
+ * <p>
+ * 여러 스레드에서 동시에 사용할 수 있다. 각 원소에는 슬롯 번호가 부여되며,
+ * 거리는 슬롯 쌍을 키로 하는 primitive 테이블에 한 번만 저장된다.
+ * 같은 쌍을 여러 스레드가 동시에 요청하더라도 실제 거리 계산은 한 번만 일어난다.
+ * 제거된 원소의 슬롯 번호는 재활용되므로 슬롯 번호는 항상 조밀하게 유지된다.
  */
 public class SLDistanceMap<T extends SLMeasurable<T>> {
 
-    protected Map<T, Map<T, Double>> distanceMap;
+    /**
+     * 일괄 계산 시 한 작업이 맡는 블록의 한 변 길이
+     */
+    public static int PRECOMPUTE_TILE_SIZE = 16;
+
+    /**
+     * 거리 저장 방식
+     */
+    public enum Storage {
+        /**
+         * 해시 테이블. 일부 쌍만 계산되는 경우에 적합하다.
+         */
+        STRIPED,
+        /**
+         * 상삼각 행렬. 대부분의 쌍이 계산되는 경우에 적합하다.
+         */
+        DENSE
+    }
+
+    /**
+     * 원소별 슬롯
+     */
+    protected Map<T, SLSlot> slots;
+
+    /**
+     * 슬롯 쌍별 거리
+     */
+    protected volatile SLDistanceTable distances;
+
+    /**
+     * 계산 중인 슬롯 쌍. 같은 쌍을 요청한 다른 스레드는 계산이 끝날 때까지 기다린다.
+     */
+    private Map<Long, CountDownLatch> computing;
+
+    /**
+     * 원소 추가/제거와 거리 저장이 엇갈리지 않도록 하는 잠금
+     */
+    private ReadWriteLock structureLock;
+
+    /**
+     * 재활용 대기 중인 슬롯 번호
+     */
+    private Deque<Integer> freeSlots;
+
+    private int nextSlot;
+
+    /**
+     * 캐시되지 않은 거리를 계산하는 방법
+     */
+    protected SLMetric<T> metric;
 
     public SLDistanceMap() {
-        distanceMap = new HashMap<>();
+        this(new SLMetric<T>() {
+            @Override
+            public double getDistance(T element1, T element2) {
+                return element1.getDistance(element2);
+            }
+
+            @Override
+            public double getDistance(T element1, T element2, double cutoff) {
+                return element1.getDistance(element2, cutoff);
+            }
+
+            @Override
+            public double getLowerBound(T element1, T element2) {
+                return element1.getLowerBound(element2);
+            }
+        });
+    }
+
+    public SLDistanceMap(SLMetric<T> metric) {
+        this(metric, Storage.STRIPED);
+    }
+
+    public SLDistanceMap(SLMetric<T> metric, Storage storage) {
+        slots = new ConcurrentHashMap<>();
+        distances = storage == Storage.DENSE ? new SLDenseDistanceTable() : new SLStripedDistanceTable();
+        computing = new ConcurrentHashMap<>();
+        structureLock = new ReentrantReadWriteLock();
+        freeSlots = new ArrayDeque<>();
+        this.metric = metric;
     }
 
     /**
@@ -37,35 +126,202 @@ public class SLDistanceMap<T extends SLMeasurable<T>> {
      * @return
      */
     public double getDistance(T element1, T element2) {
+        return getDistance(element1, element2, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * 거리 데이터 불러오기. cutoff를 넘는 것이 확실해지면 계산을 중단할 수 있다.
+     * 중단된 결과는 정확한 거리가 아니므로 캐시하지 않는다.
+     *
+     * @param element1
+     * @param element2
+     * @param cutoff
+     * @return
+     */
+    public double getDistance(T element1, T element2, double cutoff) {
 
         if (element1 == null || element2 == null)
             return Double.POSITIVE_INFINITY;
 
-        // 둘 중에 하나라도 내부 원소가 아니면 개별 비교한다(non-cached).
-        if (!distanceMap.containsKey(element1) || distanceMap.containsKey(element2)) {
-            return element1.getDistance(element2);
+        boolean interrupted = false;
+
+        try {
+            while (true) {
+
+                SLSlot slot1 = slots.get(element1);
+                SLSlot slot2 = slots.get(element2);
+
+                // 둘 중에 하나라도 내부 원소가 아니면 개별 비교한다(non-cached).
+                if (slot1 == null || slot2 == null)
+                    return metric.getDistance(element1, element2, cutoff);
+
+                double distance = getCachedDistance(element1, slot1, element2, slot2);
+                if (!Double.isNaN(distance))
+                    return distance;
+
+                // 이 쌍을 계산할 권한을 얻는다.
+                Long key = SLStripedDistanceTable.getKey(slot1.index, slot2.index);
+                CountDownLatch latch = new CountDownLatch(1);
+                CountDownLatch pending = computing.putIfAbsent(key, latch);
+
+                // 다른 스레드가 계산 중이라면 끝날 때까지 기다린 후 다시 조회한다.
+                if (pending != null) {
+                    while (true) {
+                        try {
+                            pending.await();
+                            break;
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    continue;
+                }
+
+                try {
+                    // 권한을 얻기 직전에 다른 스레드가 저장을 마쳤을 수 있다.
+                    distance = getCachedDistance(element1, slot1, element2, slot2);
+                    if (!Double.isNaN(distance))
+                        return distance;
+
+                    distance = metric.getDistance(element1, element2, cutoff);
+
+                    if (distance <= cutoff)
+                        store(element1, slot1, element2, slot2, distance);
+
+                    return distance;
+
+                } finally {
+                    computing.remove(key, latch);
+                    latch.countDown();
+                }
+            }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
         }
+    }
+
+    /**
+     * 이미 계산된 거리를 리턴한다. 계산되지 않았다면 NaN을 리턴하며, 새로 계산하지는 않는다.
+     *
+     * @param element1
+     * @param element2
+     * @return
+     */
+    public double getCachedDistance(T element1, T element2) {
+
+        SLSlot slot1 = slots.get(element1);
+        SLSlot slot2 = slots.get(element2);
+
+        if (slot1 == null || slot2 == null)
+            return Double.NaN;
+
+        return getCachedDistance(element1, slot1, element2, slot2);
+    }
+
+    /**
+     * 외부에서 얻은 거리(디스크 캐시 등)를 저장한다. 두 원소 모두 맵에 있어야 한다.
+     *
+     * @param element1
+     * @param element2
+     * @param distance
+     */
+    public void putDistance(T element1, T element2, double distance) {
+
+        SLSlot slot1 = slots.get(element1);
+        SLSlot slot2 = slots.get(element2);
+
+        if (slot1 == null || slot2 == null)
+            return;
+
+        store(element1, slot1, element2, slot2, distance);
+    }
 
-        Map<T, Double> map = distanceMap.get(element1);
+    /**
+     * 캐시된 거리를 읽는다. 읽는 도중 슬롯이 재활용되었다면 다른 원소의 값일 수 있으므로 NaN을 리턴한다.
+     */
+    private double getCachedDistance(T element1, SLSlot slot1, T element2, SLSlot slot2) {
 
-        // 아직 거리 계산이 되지 않았을 경우
-        if (!map.containsKey(element2)) {
+        double distance = distances.get(slot1.index, slot2.index);
 
-            double distance = element1.getDistance(element2);
+        if (slots.get(element1) != slot1 || slots.get(element2) != slot2)
+            return Double.NaN;
 
-            if (!distanceMap.containsKey(element2))
-                add(element2);
+        return distance;
+    }
 
-            // 데이터 대칭
-            map.put(element2, distance);
-            distanceMap.get(element2).put(element1, distance);
+    /**
+     * 계산하는 동안 원소가 제거되거나 교체되지 않았을 때만 거리를 저장한다.
+     */
+    private void store(T element1, SLSlot slot1, T element2, SLSlot slot2, double distance) {
+
+        structureLock.readLock().lock();
+        try {
+            if (slots.get(element1) == slot1 && slots.get(element2) == slot2)
+                distances.put(slot1.index, slot2.index, distance);
+        } finally {
+            structureLock.readLock().unlock();
         }
+    }
+
+    /**
+     * 거리의 하한을 구한다. 이미 계산된 거리가 있다면 그 값을 그대로 사용한다.
+     *
+     * @param element1
+     * @param element2
+     * @return
+     */
+    public double getLowerBound(T element1, T element2) {
 
-        return map.get(element2).doubleValue();
+        if (element1 == null || element2 == null)
+            return Double.POSITIVE_INFINITY;
+
+        SLSlot slot1 = slots.get(element1);
+        SLSlot slot2 = slots.get(element2);
+
+        if (slot1 != null && slot2 != null) {
+            double distance = getCachedDistance(element1, slot1, element2, slot2);
+            if (!Double.isNaN(distance))
+                return distance;
+        }
+
+        return metric.getLowerBound(element1, element2);
+    }
+
+    /**
+     * 주어진 원소들의 모든 쌍에 대해 거리를 미리 계산해 둔다.
+     * <p>
+     * 삼각 행렬을 PRECOMPUTE_TILE_SIZE 크기의 블록으로 나누어 fork-join 풀에서 병렬로 계산한다.
+     * 한 블록은 연속된 두 원소 구간의 쌍이므로 작업자가 같은 특성행렬을 반복해서 읽게 된다.
+     * 맵에 없는 원소의 쌍은 캐시되지 않으므로 미리 add() 해 두어야 한다.
+     *
+     * @param elements
+     * @param listener 진행 상황을 받을 리스너 (null 가능)
+     */
+    public void precompute(List<T> elements, SLPrecomputeListener listener) {
+
+        List<T> targets = new ArrayList<>(elements);
+
+        int tiles = (targets.size() + PRECOMPUTE_TILE_SIZE - 1) / PRECOMPUTE_TILE_SIZE;
+
+        // 대각선을 포함한 위쪽 블록들
+        List<int[]> blocks = new ArrayList<>();
+        for (int row = 0; row < tiles; row++) {
+            for (int column = row; column < tiles; column++)
+                blocks.add(new int[]{row, column});
+        }
+
+        long totalPairs = (long) targets.size() * (targets.size() - 1) / 2;
+
+        if (totalPairs < 1)
+            return;
+
+        ForkJoinPool.commonPool().invoke(new SLPrecomputeTask(targets, blocks, 0, blocks.size(),
+                new AtomicLong(), totalPairs, listener));
     }
 
     public List<T> getList() {
-        return new ArrayList<>(distanceMap.keySet());
+        return new ArrayList<>(slots.keySet());
     }
 
     /**
@@ -87,23 +343,38 @@ public class SLDistanceMap<T extends SLMeasurable<T>> {
 
     /**
      * 가장 근접한 노드를 리턴한다.
+     * <p>
+     * 거리의 하한이 작은 순서로 후보를 검사하며, 하한이 현재 최소 거리 이상인 후보는 계산하지 않는다.
+     * 검사하는 후보도 현재 최소 거리를 넘는 순간 계산을 중단한다.
      *
      * @param targetElement
      * @return
      */
     public T getClosestElement(T targetElement) {
 
-        double minimum = Double.POSITIVE_INFINITY;
-        T closestElement = null;
+        List<SLCandidate<T>> candidates = new ArrayList<>();
 
         for (T element : getList()) {
 
             if (element == targetElement) continue;
 
-            double distance = getDistance(targetElement, element);
+            candidates.add(new SLCandidate<>(element, getLowerBound(targetElement, element)));
+        }
+
+        Collections.sort(candidates, (SLCandidate<T> c1, SLCandidate<T> c2) -> Double.compare(c1.bound, c2.bound));
+
+        double minimum = Double.POSITIVE_INFINITY;
+        T closestElement = null;
+
+        for (SLCandidate<T> candidate : candidates) {
+
+            // 남은 후보는 모두 현재 최소 거리보다 가까울 수 없다.
+            if (candidate.bound >= minimum) break;
+
+            double distance = getDistance(targetElement, candidate.element, minimum);
             if (distance < minimum) {
                 minimum = distance;
-                closestElement = element;
+                closestElement = candidate.element;
             }
         }
         return closestElement;
@@ -138,7 +409,7 @@ public class SLDistanceMap<T extends SLMeasurable<T>> {
     public T getRandomElement(List<T> except) {
 
         Random random = new Random();
-        List<T> keys = new ArrayList<T>(distanceMap.keySet());
+        List<T> keys = new ArrayList<T>(slots.keySet());
 
         if (except != null)
             keys.removeAll(except);
@@ -150,7 +421,34 @@ public class SLDistanceMap<T extends SLMeasurable<T>> {
      * DistanceMap 내의 모든 원소를 제거한다.
      */
     public void clear() {
-        distanceMap.clear();
+        structureLock.writeLock().lock();
+        try {
+            slots.clear();
+            distances.clear();
+            freeSlots.clear();
+            nextSlot = 0;
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 원소는 유지한 채 캐시된 거리 데이터만 제거한다.
+     * 거리 계산 방법이 바뀌었을 때 사용한다.
+     */
+    public void invalidate() {
+        structureLock.writeLock().lock();
+        try {
+            // 계산 중이던 값이 뒤늦게 저장되지 않도록 슬롯을 새로 발급한다.
+            distances.clear();
+            freeSlots.clear();
+            nextSlot = 0;
+
+            for (T element : slots.keySet())
+                slots.put(element, allocateSlot());
+        } finally {
+            structureLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -160,20 +458,29 @@ public class SLDistanceMap<T extends SLMeasurable<T>> {
      * @return
      */
     public boolean hasElement(T element) {
-        return this.distanceMap.containsKey(element);
+        return this.slots.containsKey(element);
     }
 
     public int size() {
-        return distanceMap.size();
+        return slots.size();
     }
 
     /**
-     * 원소 추가
+     * 원소 추가. 이미 있는 원소라면 캐시된 거리가 초기화된다.
      *
      * @param element
      */
     public void add(T element) {
-        distanceMap.put(element, new HashMap<>());
+        structureLock.writeLock().lock();
+        try {
+            SLSlot slot = slots.remove(element);
+            if (slot != null)
+                releaseSlot(slot);
+
+            slots.put(element, allocateSlot());
+        } finally {
+            structureLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -193,12 +500,135 @@ public class SLDistanceMap<T extends SLMeasurable<T>> {
      * @param element
      */
     public void remove(T element) {
-        distanceMap.remove(element);
+        structureLock.writeLock().lock();
+        try {
+            SLSlot slot = slots.remove(element);
+
+            // 사용하지 않는 레퍼런스는 제거해야 gc가 된다.
+            if (slot != null)
+                releaseSlot(slot);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 새 슬롯을 발급한다. 반납된 번호가 있다면 재활용한다. (쓰기 잠금 안에서 호출)
+     *
+     * @return
+     */
+    private SLSlot allocateSlot() {
 
-        // 사용하지 않는 레퍼런스는 제거해야 gc가 된다.
-        for (T key : distanceMap.keySet()) {
-            distanceMap.get(key).remove(element);
+        int index = freeSlots.isEmpty() ? nextSlot++ : freeSlots.pop();
+
+        // 상삼각 행렬을 메모리 예산 안에서 늘릴 수 없을 만큼 원소가 많아지면 해시 테이블로 옮긴다.
+        if (distances instanceof SLDenseDistanceTable && !((SLDenseDistanceTable) distances).canHold(index)) {
+
+            System.out.println("Warning: Too many elements for dense distance storage. Switching to striped storage.");
+
+            SLDistanceTable table = new SLStripedDistanceTable();
+            ((SLDenseDistanceTable) distances).copyTo(table);
+            distances = table;
+        }
+
+        distances.ensureCapacity(index);
+
+        return new SLSlot(index);
+    }
+
+    /**
+     * 슬롯의 거리 데이터를 지우고 번호를 반납한다. (쓰기 잠금 안에서 호출)
+     *
+     * @param slot
+     */
+    private void releaseSlot(SLSlot slot) {
+        distances.remove(slot.index);
+        freeSlots.push(slot.index);
+    }
+
+    /**
+     * 원소에 부여된 슬롯. 원소가 추가될 때마다 새로 만들어지므로,
+     * 계산 도중 원소가 교체되었는지를 인스턴스 비교로 알 수 있다.
+     */
+    protected static class SLSlot {
+
+        public final int index;
+
+        public SLSlot(int index) {
+            this.index = index;
         }
+    }
 
+    /**
+     * 블록 구간을 절반씩 나누어 계산하는 fork-join 작업
+     */
+    private class SLPrecomputeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private List<T> elements;
+        private List<int[]> blocks;
+        private int from;
+        private int to;
+        private AtomicLong computedPairs;
+        private long totalPairs;
+        private SLPrecomputeListener listener;
+
+        SLPrecomputeTask(List<T> elements, List<int[]> blocks, int from, int to,
+                         AtomicLong computedPairs, long totalPairs, SLPrecomputeListener listener) {
+            this.elements = elements;
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+            this.computedPairs = computedPairs;
+            this.totalPairs = totalPairs;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SLPrecomputeTask(elements, blocks, from, middle, computedPairs, totalPairs, listener),
+                        new SLPrecomputeTask(elements, blocks, middle, to, computedPairs, totalPairs, listener));
+                return;
+            }
+
+            int[] block = blocks.get(from);
+
+            int rowStart = block[0] * PRECOMPUTE_TILE_SIZE;
+            int rowEnd = Math.min(rowStart + PRECOMPUTE_TILE_SIZE, elements.size());
+            int columnStart = block[1] * PRECOMPUTE_TILE_SIZE;
+            int columnEnd = Math.min(columnStart + PRECOMPUTE_TILE_SIZE, elements.size());
+
+            long pairs = 0;
+
+            for (int i = rowStart; i < rowEnd; i++) {
+                for (int j = Math.max(columnStart, i + 1); j < columnEnd; j++) {
+                    getDistance(elements.get(i), elements.get(j));
+                    pairs++;
+                }
+            }
+
+            long computed = computedPairs.addAndGet(pairs);
+
+            if (listener != null && pairs > 0)
+                listener.onPrecomputeProgress(computed, totalPairs);
+        }
+    }
+
+    /**
+     * 최근접 원소 탐색에 사용되는 후보와 그 거리 하한
+     */
+    private static class SLCandidate<T> {
+
+        public T element;
+        public double bound;
+
+        public SLCandidate(T element, double bound) {
+            this.element = element;
+            this.bound = bound;
+        }
     }
 }
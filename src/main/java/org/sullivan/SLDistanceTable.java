@@ -0,0 +1,63 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+/**
+ * 슬롯 번호 쌍으로 거리를 저장하는 대칭 테이블
+ * <p>
+ * get/put은 여러 스레드에서 동시에 호출될 수 있다.
+ * ensureCapacity, remove, clear는 put과 동시에 호출되지 않음을 SLDistanceMap이 보장한다.
+ */
+public interface SLDistanceTable {
+
+    /**
+     * 두 슬롯의 거리를 리턴한다. 저장되어 있지 않다면 NaN을 리턴한다.
+     *
+     * @param slot1
+     * @param slot2
+     * @return
+     */
+    double get(int slot1, int slot2);
+
+    /**
+     * 두 슬롯의 거리를 저장한다.
+     *
+     * @param slot1
+     * @param slot2
+     * @param distance
+     */
+    void put(int slot1, int slot2, double distance);
+
+    /**
+     * 해당 슬롯 번호까지 저장할 수 있도록 공간을 확보한다.
+     *
+     * @param slot
+     */
+    void ensureCapacity(int slot);
+
+    /**
+     * 특정 슬롯이 포함된 모든 쌍을 제거한다.
+     *
+     * @param slot
+     */
+    void remove(int slot);
+
+    /**
+     * 모든 쌍을 제거한다.
+     */
+    void clear();
+}
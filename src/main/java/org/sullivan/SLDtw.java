@@ -0,0 +1,346 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+import java.util.Arrays;
+
+/**
+ * 두 특성행렬 간의 Dynamic Time Warping 거리를 계산한다.
+ * 시간 축에 대해 DTW를, 주파수 축에 대해선 Euclidean Distance를 적용한다.
+ * <p>
+ * 거리만 필요한 경우 전체 행렬 대신 두 개의 행만 번갈아 사용하며,
+ * 행 버퍼는 스레드별로 재사용하므로 비교할 때마다 할당이 일어나지 않는다.
+ * 각 행의 지역 거리는 프레임 거리 커널이 한꺼번에 계산한다.
+ */
+public class SLDtw {
+
+    /**
+     * 벡터 커널의 클래스 이름. jdk.incubator.vector 모듈이 없는 환경에서도 이 클래스가 로드될 수 있도록 직접 참조하지 않는다.
+     */
+    private static final String VECTOR_KERNEL = "org.sullivan.SLVectorFrameKernel";
+
+    /**
+     * 프레임 거리 커널. Vector API를 사용할 수 있다면(--add-modules jdk.incubator.vector) 벡터 커널이 선택된다.
+     */
+    public static SLFrameKernel kernel = createKernel();
+
+    /**
+     * float 정밀도로 계산하는 커널을 사용할 때 하한을 줄이는 상대 오차.
+     * 커널의 거리가 double로 구한 하한보다 반올림만큼 작아지더라도 하한이 거리를 넘지 않게 한다.
+     */
+    public static double LOWER_BOUND_TOLERANCE = 1e-6;
+
+    /**
+     * 스레드별로 재사용되는 행 버퍼 (이전 행, 현재 행, 지역 거리)
+     */
+    private static final ThreadLocal<double[][]> scratch = new ThreadLocal<double[][]>() {
+        @Override
+        protected double[][] initialValue() {
+            return new double[][]{new double[0], new double[0], new double[0]};
+        }
+    };
+
+    /**
+     * 실행 환경에 맞는 커널을 생성한다.
+     *
+     * @return
+     */
+    private static SLFrameKernel createKernel() {
+
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (SLFrameKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+                System.out.println("Warning: Vector kernel is unavailable. (" + e + ")");
+            }
+        }
+
+        return new SLScalarFrameKernel();
+    }
+
+    /**
+     * 두 특성행렬 간 DTW 거리를 계산한다.
+     * 결과는 전체 누적 행렬을 사용하는 계산과 비트 단위로 동일하다.
+     *
+     * @param n
+     * @param m
+     * @return
+     */
+    public static double getDistance(SLFrameMatrix n, SLFrameMatrix m) {
+        return getDistance(n, m, SLWarpingWindow.NONE);
+    }
+
+    /**
+     * 전역 제약 내의 셀만 평가하여 DTW 거리를 계산한다.
+     *
+     * @param n
+     * @param m
+     * @param window
+     * @return
+     */
+    public static double getDistance(SLFrameMatrix n, SLFrameMatrix m, SLWarpingWindow window) {
+        return getDistance(n, m, window, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * cutoff를 넘는 것이 확실해지면 계산을 중단하는 DTW 거리.
+     * 한 행의 최소 누적값이 cutoff를 넘으면 이후의 모든 경로도 cutoff를 넘으므로 무한대를 리턴한다.
+     * cutoff 이하인 경우에는 중단하지 않은 계산과 같은 값을 리턴한다.
+     *
+     * @param n
+     * @param m
+     * @param window
+     * @param cutoff
+     * @return
+     */
+    public static double getDistance(SLFrameMatrix n, SLFrameMatrix m, SLWarpingWindow window, double cutoff) {
+
+        int nl = n.frames + 1;
+        int ml = m.frames + 1;
+
+        // 한 쪽이라도 비어 있다면 경로가 존재하지 않는다.
+        if (nl == 1 || ml == 1)
+            return (nl == 1 && ml == 1) ? 0 : Double.POSITIVE_INFINITY;
+
+        // 차원이 다르면 모든 지역 거리가 무한대이다.
+        if (n.dimension != m.dimension)
+            return Double.POSITIVE_INFINITY;
+
+        double[][] rows = getScratch(ml);
+        double[] previous = rows[0];
+        double[] current = rows[1];
+        double[] costs = rows[2];
+
+        SLFrameKernel kernel = SLDtw.kernel;
+
+        previous[0] = 0;
+        Arrays.fill(previous, 1, ml, Double.POSITIVE_INFINITY);
+
+        // 이전 행에서 유효한 값이 채워진 마지막 열
+        int previousUpper = ml - 1;
+
+        for (int i = 1; i < nl; i++) {
+
+            int lower = window.getLower(i, n.frames, m.frames);
+            int upper = window.getUpper(i, n.frames, m.frames);
+
+            // 이전 행의 범위 밖은 도달할 수 없는 셀이다.
+            if (upper > previousUpper)
+                Arrays.fill(previous, previousUpper + 1, upper + 1, Double.POSITIVE_INFINITY);
+
+            current[lower - 1] = Double.POSITIVE_INFINITY;
+            double rowMinimum = Double.POSITIVE_INFINITY;
+
+            // costs[j - 1]: (i, j) 셀의 지역 거리
+            kernel.getDistances(n, i - 1, m, lower - 1, upper, costs);
+
+            // 왼쪽 셀과 대각선 셀은 배열에서 다시 읽지 않고 레지스터로 넘긴다.
+            // 누적값은 음이 아니므로 비교 연산으로 구한 최소값은 Math.min과 같다. (insertion, deletion, match 순)
+            double left = Double.POSITIVE_INFINITY;
+            double diagonal = previous[lower - 1];
+
+            for (int j = lower; j <= upper; j++) {
+                double up = previous[j];
+                double best = up < left ? up : left;
+                best = diagonal < best ? diagonal : best;
+                left = costs[j - 1] + best;
+                current[j] = left;
+                if (left < rowMinimum) rowMinimum = left;
+                diagonal = up;
+            }
+
+            // Early abandoning
+            if (rowMinimum > cutoff)
+                return Double.POSITIVE_INFINITY;
+
+            previousUpper = upper;
+
+            double[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return previous[ml - 1];
+    }
+
+    /**
+     * DTW 거리의 하한을 계산한다. (LB_Kim, LB_Keogh 중 큰 값)
+     * <p>
+     * LB_Kim: 모든 경로는 첫 프레임 쌍과 마지막 프레임 쌍을 지난다.
+     * LB_Keogh: 모든 경로는 각 행을 한 번 이상 지나며, 그 셀의 비용은
+     * 상대 행렬의 envelope까지의 거리보다 작을 수 없다.
+     * 전역 제약은 경로를 줄이기만 하므로 제약과 상관없이 유효한 하한이다.
+     * 스칼라 커널이 아니라면 LOWER_BOUND_TOLERANCE만큼 줄인 값을 리턴한다.
+     *
+     * @param n
+     * @param m
+     * @return
+     */
+    public static double getLowerBound(SLFrameMatrix n, SLFrameMatrix m) {
+
+        if (n.frames == 0 || m.frames == 0)
+            return (n.frames == 0 && m.frames == 0) ? 0 : Double.POSITIVE_INFINITY;
+
+        if (n.dimension != m.dimension)
+            return Double.POSITIVE_INFINITY;
+
+        int dimension = n.dimension;
+
+        // LB_Kim
+        double bound = getLocalDistance(n.data, 0, m.data, 0, dimension);
+        if (n.frames > 1 || m.frames > 1)
+            bound += getLocalDistance(n.data, (n.frames - 1) * dimension, m.data, (m.frames - 1) * dimension, dimension);
+
+        // LB_Keogh (양방향)
+        bound = Math.max(bound, getEnvelopeDistance(n, m));
+        bound = Math.max(bound, getEnvelopeDistance(m, n));
+
+        if (!(kernel instanceof SLScalarFrameKernel))
+            bound *= 1 - LOWER_BOUND_TOLERANCE;
+
+        return bound;
+    }
+
+    /**
+     * n의 각 프레임에서 m의 envelope까지의 거리를 합한다.
+     *
+     * @param n
+     * @param m
+     * @return
+     */
+    private static double getEnvelopeDistance(SLFrameMatrix n, SLFrameMatrix m) {
+
+        float[] a = n.data;
+        float[] lower = m.lowerEnvelope;
+        float[] upper = m.upperEnvelope;
+        int dimension = n.dimension;
+
+        double bound = 0;
+
+        for (int i = 0; i < n.frames * dimension; i += dimension) {
+            double sum = 0;
+            for (int k = 0; k < dimension; k++) {
+                float value = a[i + k];
+                double difference = 0;
+                if (value > upper[k])
+                    difference = value - upper[k];
+                else if (value < lower[k])
+                    difference = lower[k] - value;
+                sum += difference * difference;
+            }
+            bound += Math.sqrt(sum);
+        }
+
+        return bound;
+    }
+
+    /**
+     * 역추적을 위해 전체 누적 거리 행렬을 계산한다.
+     *
+     * @param n
+     * @param m
+     * @return
+     */
+    public static double[][] getCostMatrix(SLFrameMatrix n, SLFrameMatrix m) {
+        return getCostMatrix(n, m, SLWarpingWindow.NONE);
+    }
+
+    /**
+     * 역추적을 위해 전체 누적 거리 행렬을 계산한다. 제약 밖의 셀은 무한대로 남는다.
+     *
+     * @param n
+     * @param m
+     * @param window
+     * @return
+     */
+    public static double[][] getCostMatrix(SLFrameMatrix n, SLFrameMatrix m, SLWarpingWindow window) {
+
+        int nl = n.frames + 1;
+        int ml = m.frames + 1;
+
+        double[][] map = new double[nl][ml];
+
+        for (int i = 0; i < nl; i++)
+            Arrays.fill(map[i], Double.POSITIVE_INFINITY);
+
+        map[0][0] = 0;
+
+        boolean comparable = n.dimension == m.dimension;
+        double[] costs = new double[Math.max(m.frames, 1)];
+
+        if (!comparable)
+            Arrays.fill(costs, Double.POSITIVE_INFINITY);
+
+        for (int i = 1; i < nl; i++) {
+
+            int lower = window.getLower(i, n.frames, m.frames);
+            int upper = window.getUpper(i, n.frames, m.frames);
+
+            if (comparable)
+                kernel.getDistances(n, i - 1, m, lower - 1, upper, costs);
+
+            for (int j = lower; j <= upper; j++) {
+                map[i][j] = costs[j - 1] + Math.min(Math.min(
+                        map[i - 1][j], // Insertion
+                        map[i][j - 1]), // Deletion
+                        map[i - 1][j - 1]); // Match
+            }
+        }
+
+        return map;
+    }
+
+    /**
+     * 두 프레임 간 Euclidean 거리를 계산한다.
+     * float 차이의 제곱은 double로 정확히 표현되므로 Math.pow(d, 2)와 결과가 같다.
+     *
+     * @param a
+     * @param aOffset
+     * @param b
+     * @param bOffset
+     * @param dimension
+     * @return
+     */
+    static double getLocalDistance(float[] a, int aOffset, float[] b, int bOffset, int dimension) {
+        double sum = 0;
+
+        for (int k = 0; k < dimension; k++) {
+            double difference = a[aOffset + k] - b[bOffset + k];
+            sum += difference * difference;
+        }
+        return Math.sqrt(sum);
+    }
+
+    /**
+     * 최소 길이 이상의 행 버퍼를 가져온다.
+     *
+     * @param length
+     * @return
+     */
+    private static double[][] getScratch(int length) {
+
+        double[][] rows = scratch.get();
+
+        if (rows[0].length < length) {
+            int capacity = Math.max(length, rows[0].length * 2);
+            rows[0] = new double[capacity];
+            rows[1] = new double[capacity];
+            rows[2] = new double[capacity];
+        }
+        return rows;
+    }
+}
@@ -17,6 +17,7 @@
 package org.sullivan;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -44,6 +45,16 @@ public class SLEvaluationReport {
      */
     public SLCmvPath<SLCluster> backtrackingPath;
 
+    /**
+     * 평가에 사용된 DTW 전역 제약
+     */
+    public SLWarpingWindow warpingWindow = SLWarpingWindow.NONE;
+
+    /**
+     * 채점 중 계산된 평가 대상과의 거리. 학습으로 반영될 때 워드 노드 맵으로 옮겨진다.
+     */
+    SLOverlayDistanceMap<SLNode> distances;
+
     public SLEvaluationReport() {
         this.characteristics = new SLReportCharacteristics();
     }
@@ -59,12 +70,12 @@ public class SLEvaluationReport {
          */
         String report = "";
 
-        double cost = characteristics.model.getCentroid().getDistance(attempt); // distance. 이제 이걸 정규분포화해야하는데..! (TODO)
+        double cost = characteristics.model.getCentroid().getDistance(attempt, warpingWindow); // distance. 이제 이걸 정규분포화해야하는데..! (TODO)
         report += "pronunciation score: " + cost + " (" + Math.round(SLCluster.DISTANCE_THRESHOLD * 100 / cost) + "%)\n";
         report += "*lower the score, the better.\n";
         report += "classification: " + (classifiedAsFailure ? "failed" : "succeed") + "\n";
 
-        double[] costGraph = characteristics.model.getCentroid().getCostPath(attempt);
+        double[] costGraph = characteristics.model.getCentroid().getCostPath(attempt, warpingWindow);
         report += "accuracy graph: (" + Math.round(costGraph[0] * 100);
         for (int i = 1; i < costGraph.length; i++)
             report += ", " + Math.round(costGraph[i] * 100);
@@ -109,53 +120,115 @@ public class SLEvaluationReport {
         return report;
     }
 
+    /**
+     * 리포트를 한 줄짜리 JSON 객체로 변환한다. (JSON lines 형식으로 이어 쓸 수 있다)
+     *
+     * @return
+     */
     public String getResultAsJson() {
 
-        String report = "{";
+        StringBuilder report = new StringBuilder("{");
 
-        double cost = characteristics.model.getCentroid().getDistance(attempt); // distance. 이제 이걸 정규분포화해야하는데..! (TODO)
-        report += "\"score\": " + cost + ",\n";
-        report += "\"threshold: " + SLCluster.DISTANCE_THRESHOLD + ",";
-        report += "\"classification\": " + (classifiedAsFailure ? "\"failed\"" : "\"succeed\"") + ",\n";
-        report += "\"graph\": [";
+        if (attempt.info != null && attempt.info.source != null)
+            report.append("\"source\": ").append(quote(attempt.info.source.getPath())).append(", ");
 
-        double[] costGraph = characteristics.model.getCentroid().getCostPath(attempt);
-        report += Math.round(costGraph[0] * 100);
-        for (int i = 1; i < costGraph.length; i++)
-            report += ", " + Math.round(costGraph[i] * 100);
-        report += "],\n";
+        double cost = characteristics.model.getCentroid().getDistance(attempt, warpingWindow); // distance. 이제 이걸 정규분포화해야하는데..! (TODO)
+        report.append("\"score\": ").append(toJsonNumber(cost)).append(", ");
+        report.append("\"threshold\": ").append(SLCluster.DISTANCE_THRESHOLD).append(", ");
+        report.append("\"classification\": ").append(classifiedAsFailure ? "\"failed\"" : "\"succeed\"").append(", ");
 
-        report += "\"characteristics\": [";
-        for (SLCluster cluster : characteristics.success) {
-            for (SLDescription description : cluster.getDescriptions()) {
-                report += "\"" + description.description + "\",";
+        report.append("\"graph\": [");
+        double[] costGraph = characteristics.model.getCentroid().getCostPath(attempt, warpingWindow);
+        for (int i = 0; i < costGraph.length; i++)
+            report.append(i > 0 ? ", " : "").append(Math.round(costGraph[i] * 100));
+        report.append("], ");
+
+        report.append("\"characteristics\": ").append(toJsonArray(characteristics.success)).append(", ");
+        report.append("\"weaknesses\": ").append(toJsonArray(characteristics.failure));
+
+        if (classifiedAsFailure) {
+            report.append(", \"route\": [");
+            int no = 0;
+            for (SLCluster step : backtrackingPath.steps) {
+                report.append(no++ > 0 ? ", " : "");
+                report.append("{\"node\": ").append(step.getCentroid().uid).append(", ");
+                report.append("\"description\": ").append(toJsonArray(Collections.singletonList(step))).append("}");
             }
+            report.append("], ");
+            report.append("\"routeCost\": ").append(Math.round(backtrackingPath.getCost()));
         }
-        report += "],\n";
+        report.append("}");
 
-        report += "\"weaknesses\": \n";
-        for (SLCluster cluster : characteristics.failure) {
+        return report.toString();
+    }
+
+    /**
+     * 클러스터들의 description을 JSON 문자열 배열로 변환한다.
+     *
+     * @param clusters
+     * @return
+     */
+    private static String toJsonArray(List<SLCluster> clusters) {
+
+        StringBuilder array = new StringBuilder("[");
+
+        for (SLCluster cluster : clusters) {
             for (SLDescription description : cluster.getDescriptions()) {
-                report += "\"" + description.description + "\",";
+                if (array.length() > 1)
+                    array.append(", ");
+                array.append(quote(description.description));
             }
         }
-        report += "],\n";
 
-        if (classifiedAsFailure) {
-            report += "\"route\": [";
-            for (SLCluster step : backtrackingPath.steps) {
-                report += "{\n\"node\": " + step.getCentroid().uid + "\",\n\"description\": [";
-                for (SLDescription description : step.getDescriptions()) {
-                    report += description.description + ", ";
-                }
-                report += "]}\n";
+        return array.append("]").toString();
+    }
+
+    /**
+     * JSON은 무한대, NaN을 표현할 수 없으므로 null로 기록한다.
+     *
+     * @param value
+     * @return
+     */
+    private static String toJsonNumber(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : String.valueOf(value);
+    }
+
+    /**
+     * 문자열을 JSON 문자열 리터럴로 변환한다.
+     *
+     * @param text
+     * @return
+     */
+    static String quote(String text) {
+
+        StringBuilder quoted = new StringBuilder("\"");
+
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    else
+                        quoted.append(c);
             }
-            report += "],\n";
-            report += "\"routeCost\": " + Math.round(backtrackingPath.getCost()) + "\n";
         }
-        report += "\n}";
 
-        return report;
+        return quoted.append("\"").toString();
     }
 
     /**
@@ -0,0 +1,137 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 전처리된 음성 데이터(*.sns, *.spd)로부터 추출한 특성행렬을 옆에 바이너리 파일(*.mfcc)로 보관하는 클래스
+ * <p>
+ * 파일은 헤더(추출 파라미터, 원본 파일의 크기와 수정 시각), 프레임 수, 계수 수,
+ * 그리고 row-major 순서의 float 값들로 이루어진다.
+ * 추출 파라미터나 원본 파일이 달라졌다면 캐시는 무시되고 다시 추출된다.
+ */
+public class SLFeatureCache {
+
+    private static final int MAGIC = 0x534c4643; // "SLFC"
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * 캐시된 특성행렬을 읽어온다. 캐시가 없거나 유효하지 않다면 null을 리턴한다.
+     *
+     * @param source    원본 음성 파일
+     * @param signature 특징 추출 파라미터
+     * @return
+     */
+    public static SLFrameMatrix read(File source, String signature) {
+
+        File file = getCacheFile(source);
+
+        if (!file.exists())
+            return null;
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION)
+                return null;
+
+            byte[] signatureBytes = new byte[buffer.getShort() & 0xffff];
+            buffer.get(signatureBytes);
+
+            if (!signature.equals(new String(signatureBytes, StandardCharsets.UTF_8)))
+                return null;
+
+            if (buffer.getLong() != source.length() || buffer.getLong() != source.lastModified())
+                return null;
+
+            int frames = buffer.getInt();
+            int dimension = buffer.getInt();
+
+            if (frames < 0 || dimension < 0 || (long) frames * dimension * Float.BYTES != buffer.remaining())
+                return null;
+
+            float[] data = new float[frames * dimension];
+            buffer.asFloatBuffer().get(data);
+
+            return new SLFrameMatrix(data, frames, dimension);
+
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Warning: Feature cache '" + file.getPath() + "' is unreadable.");
+            return null;
+        }
+    }
+
+    /**
+     * 특성행렬을 캐시 파일로 저장한다.
+     *
+     * @param source    원본 음성 파일
+     * @param signature 특징 추출 파라미터
+     * @param matrix
+     */
+    public static void write(File source, String signature, SLFrameMatrix matrix) {
+
+        File file = getCacheFile(source);
+        File temporaryFile = new File(file.getPath() + ".tmp");
+
+        byte[] signatureBytes = signature.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 2 + signatureBytes.length + 8 + 8 + 4 + 4
+                + matrix.frames * matrix.dimension * Float.BYTES);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putShort((short) signatureBytes.length);
+        buffer.put(signatureBytes);
+        buffer.putLong(source.length());
+        buffer.putLong(source.lastModified());
+        buffer.putInt(matrix.frames);
+        buffer.putInt(matrix.dimension);
+        buffer.asFloatBuffer().put(matrix.data, 0, matrix.frames * matrix.dimension);
+
+        try {
+            Files.write(temporaryFile.toPath(), buffer.array());
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 원본 파일의 확장자를 .mfcc로 바꾼 캐시 파일
+     *
+     * @param source
+     * @return
+     */
+    private static File getCacheFile(File source) {
+
+        String name = source.getName();
+        int i = name.lastIndexOf('.');
+
+        return new File(source.getAbsoluteFile().getParentFile(), (i > 0 ? name.substring(0, i) : name) + ".mfcc");
+    }
+}
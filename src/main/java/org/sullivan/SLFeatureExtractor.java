@@ -16,7 +16,6 @@
 
 package org.sullivan;
 
-import be.tarsos.dsp.AudioDispatcher;
 import be.tarsos.dsp.AudioEvent;
 import be.tarsos.dsp.AudioProcessor;
 import be.tarsos.dsp.io.jvm.AudioPlayer;
@@ -30,15 +29,44 @@ import java.util.*;
  */
 public class SLFeatureExtractor implements AudioProcessor {
 
+    /**
+     * 특징 추출 과정의 버전. 추출 결과가 달라지는 변경이 있을 때마다 올려야
+     * 디스크에 캐시된 특징행렬과 거리 데이터가 폐기된다.
+     */
+    public static final int FEATURE_VERSION = 2;
+
+    /**
+     * 음성이 처리된 단계
+     */
+    public enum Stage {
+        /**
+         * 원본 음성
+         */
+        RAW,
+        /**
+         * 여백 제거와 화자 일반화까지 끝난 음성 (*.sns)
+         */
+        NORMALIZED,
+        /**
+         * 프레임 전처리까지 끝난 음성 (이전 버전의 *.spd)
+         */
+        PREPROCESSED
+    }
+
+    /**
+     * 특징 추출 프로필
+     */
+    public SLFeatureProfile profile;
+
     /**
      * 음성 처리 버퍼 크기
      */
-    public int bufferSize = 5000;
+    public int bufferSize;
 
     /**
      * 버퍼 간 겹침 크기
      */
-    public int bufferOverlap = 1;
+    public int bufferOverlap;
 
     /**
      * 이벤트 리스너들
@@ -58,40 +86,49 @@ public class SLFeatureExtractor implements AudioProcessor {
     /**
      * 노드 처리기를 생성한다.
      *
-     * @param bufferSize
-     * @param bufferOverlap
+     * @param profile
      */
-    public SLFeatureExtractor(int bufferSize, int bufferOverlap) {
+    public SLFeatureExtractor(SLFeatureProfile profile) {
 
-        this.bufferSize = bufferSize;
-        this.bufferOverlap = bufferOverlap;
+        this.profile = profile;
+        this.bufferSize = profile.windowSize;
+        this.bufferOverlap = profile.getOverlap();
 
         listeners = new ArrayList<>();
     }
 
     /**
-     * 음성 데이터 전처리 프로세스 - 이미 데이터 처리가 되어 있는 경우
+     * 음성 데이터 전처리 프로세스 - 이미 데이터 처리가 되어 있는 경우 (이전 버전의 *.spd)
+     * 프레임 전처리까지 끝난 음성이므로 특징행렬만 추출한다.
      */
     public void process(SLPcmData pcmData) {
 
         this.pcmData = pcmData;
 
-        /** 프레임별 처리 **/
-        AudioDispatcher dispatcher = pcmData.getAudioDispatcher(bufferSize, bufferOverlap);
+        // 정규 샘플 레이트로 변환한다. (정규 레이트로 저장된 음성이라면 변환하지 않는다)
+        SLResampler.resample(pcmData, profile.sampleRate);
 
-        // 특징행렬 추출기
-        mfccExtractor = new SLMfccExtractor(bufferSize, bufferOverlap, 12);
+        extract(pcmData, false);
+    }
 
-        dispatcher.addAudioProcessor(mfccExtractor);
+    /**
+     * 음성 데이터 전처리 프로세스 - 여백 제거와 화자 일반화까지 끝난 경우 (*.sns)
+     * 프레임 전처리부터 다시 수행하므로 처음 추출했을 때와 같은 특징행렬을 얻는다.
+     */
+    public void processNormalized(SLPcmData pcmData) {
 
-        dispatcher.addAudioProcessor(this);
+        this.pcmData = pcmData;
+
+        // 정규 샘플 레이트로 변환한다. (정규 레이트로 저장된 음성이라면 변환하지 않는다)
+        SLResampler.resample(pcmData, profile.sampleRate);
 
-        // 프로세싱 시작. 프로세싱은 별개의 스레드에서 이루어진다.
-        dispatcher.run();
+        extract(pcmData, true);
     }
 
     /**
      * 음성 데이터 전처리 프로세스
+     * 프레임으로 나누기 직전의 음성이 path에 비동기로 저장되며, path가 null이면 저장하지 않는다.
+     * 저장된 음성은 processNormalized()로 다시 추출할 수 있다.
      */
     public void process(SLPcmData pcmData, String path) {
 
@@ -99,40 +136,77 @@ public class SLFeatureExtractor implements AudioProcessor {
 
         /** 전음 처리 **/
 
+        // 정규 샘플 레이트로 변환한다.
+        SLResampler.resample(pcmData, profile.sampleRate);
+
         // 음성 앞, 뒤의 여백을 제거한다.
         SLSilenceTruncator.truncate(pcmData);
 
         // 음성 데이터를 화자 일반화한다.
         SLPitchNormalizer.normalize(pcmData);
 
-        /** 프레임별 처리 **/
-        AudioDispatcher dispatcher = pcmData.getAudioDispatcher(bufferSize, bufferOverlap);
+        // 데이터 저장. 프레임 전처리는 프레임마다 다른 이득을 곱하고 겹치는 구간을 따로 처리하므로,
+        // 그 결과를 이어 붙이면 같은 특징행렬을 다시 얻을 수 없다.
+        if (path != null)
+            SLWaveWriter.write(pcmData, path);
 
-        // 볼륨 크기 일반화
-        SLVolumeNormalizer volumeNormalizer = new SLVolumeNormalizer();
+        extract(pcmData, true);
+    }
 
-        // 고주파수 보상
-        SLHighFrequencyCompensator hfCompensator = new SLHighFrequencyCompensator();
+    /**
+     * 음성을 프레임으로 나누어 특징행렬을 추출한다.
+     *
+     * @param pcmData
+     * @param preprocess 볼륨 일반화, 고주파수 보상, 대역 통과 필터를 적용할지 여부
+     */
+    private void extract(SLPcmData pcmData, boolean preprocess) {
 
-        // 성대 음역대로 주파수 대역 거르기
-        SLVoiceBandpassFilter bandpassFilter = new SLVoiceBandpassFilter(pcmData.sampleRate);
+        /** 프레임별 처리 **/
+        SLFrameDispatcher dispatcher = SLFrameDispatcher.acquire();
 
-        // 데이터 저장
-        SLWaveWriter waveWriter = new SLWaveWriter(dispatcher.getFormat(), path);
+        List<AudioProcessor> processors = new ArrayList<>(3);
+
+        // 볼륨 크기 일반화, 고주파수 보상, 성대 음역대로 주파수 대역 거르기
+        if (preprocess)
+            processors.add(new SLFramePreprocessor(pcmData.sampleRate));
 
         // 특징행렬 추출기
-        mfccExtractor = new SLMfccExtractor(bufferSize, bufferOverlap, 12);
+        mfccExtractor = acquireMfccExtractor(pcmData.sampleRate);
+        processors.add(mfccExtractor);
+
+        processors.add(this);
+
+        try {
+            dispatcher.run(pcmData, bufferSize, bufferOverlap, processors);
+        } finally {
+            SLMfccExtractor.release(mfccExtractor);
+            SLFrameDispatcher.release(dispatcher);
+        }
+    }
 
-        dispatcher.addAudioProcessor(volumeNormalizer);
-        dispatcher.addAudioProcessor(hfCompensator);
-        dispatcher.addAudioProcessor(bandpassFilter);
-        dispatcher.addAudioProcessor(mfccExtractor);
-        dispatcher.addAudioProcessor(waveWriter);
+    /**
+     * 풀에서 MFCC 추출기를 가져온다.
+     * LEGACY 프로필은 기존 추출 결과와 같도록 샘플 레이트 자리에 겹침 크기를 넘긴다. (필터 뱅크가 이 값으로 계산되어 왔다)
+     *
+     * @param sampleRate
+     * @return
+     */
+    private SLMfccExtractor acquireMfccExtractor(int sampleRate) {
 
-        dispatcher.addAudioProcessor(this);
+        if (profile.legacy)
+            return SLMfccExtractor.acquire(bufferSize, bufferSize, bufferOverlap, profile.coefficientNumber);
 
-        // 프로세싱 시작. 프로세싱은 별개의 스레드에서 이루어진다.
-        dispatcher.run();
+        return SLMfccExtractor.acquire(bufferSize, profile.fftSize, sampleRate, profile.coefficientNumber);
+    }
+
+    /**
+     * 추출 결과를 결정하는 파라미터들을 나타내는 문자열을 리턴한다.
+     * 값이 같다면 같은 음성 데이터로부터 같은 특징행렬이 추출된다.
+     *
+     * @return
+     */
+    public String getSignature() {
+        return profile.getSignature();
     }
 
     @Override
@@ -146,8 +220,8 @@ public class SLFeatureExtractor implements AudioProcessor {
     private void postprocess() {
 
 
-        // 특징행렬 취득
-        List<float[]> featureMatrix = mfccExtractor.getFeatureMatrix();
+        // 특징행렬 취득. 추출기는 재사용되므로 복사해 둔다.
+        List<float[]> featureMatrix = new ArrayList<>(mfccExtractor.getFeatureMatrix());
 
         // 모든 데이터는 일반화를 위해 Big Endian으로 통일한다.
         if (pcmData.isBigEndian)
@@ -0,0 +1,196 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+
+package org.sullivan;
+
+/**
+ * 특징 추출 방식을 결정하는 프로필 (정규 샘플 레이트, 창 크기, 이동 크기, FFT 크기, MFCC 계수의 수)
+ * <p>
+ * 모든 음성은 추출 전에 프로필의 정규 샘플 레이트로 변환되므로, 녹음 환경이 달라도 같은 조건에서 비교된다.
+ * 이동 크기가 노드의 프레임 수를, 프레임 수가 DTW 비용(프레임 수의 곱)을 결정하므로
+ * 프로필로 정확도와 비교 비용 사이의 균형을 조절할 수 있다.
+ * LEGACY 외의 프로필은 2의 거듭제곱 크기의 FFT를 사용하며, 창이 FFT보다 작으면 0으로 채워 변환한다.
+ * 모든 크기의 단위는 정규 샘플 레이트에서의 샘플이다.
+ */
+public class SLFeatureProfile {
+
+    /**
+     * mel 필터의 수. 계수의 수는 이보다 작아야 한다.
+     */
+    public static final int MEL_FILTER_NUMBER = 30;
+
+    /**
+     * 기본 프로필의 정규 샘플 레이트. 음성 대역(300-3400Hz)을 담기에 충분하다.
+     */
+    public static final int CANONICAL_SAMPLE_RATE = 16000;
+
+    /**
+     * 정규 샘플 레이트의 하한
+     */
+    public static final int MINIMUM_SAMPLE_RATE = 8000;
+
+    /**
+     * 기존 추출 방식 (5000 샘플 창, 1 샘플 겹침)
+     * 필터 뱅크를 겹침 크기를 샘플 레이트로 삼아 계산하던 동작까지 그대로 재현하므로,
+     * 이 프로필로 추출한 특징행렬은 이전 버전과 같다. 음성은 원래의 샘플 레이트로 처리된다.
+     */
+    public static final SLFeatureProfile LEGACY = new SLFeatureProfile("legacy", 0, 5000, 4999, 5000, 12, true);
+
+    /**
+     * 16kHz 기준 64ms 창, 32ms 이동
+     */
+    public static final SLFeatureProfile COARSE = new SLFeatureProfile("coarse", CANONICAL_SAMPLE_RATE, 1024, 512, 1024, 12);
+
+    /**
+     * 16kHz 기준 32ms 창, 16ms 이동
+     */
+    public static final SLFeatureProfile STANDARD = new SLFeatureProfile("standard", CANONICAL_SAMPLE_RATE, 512, 256, 512, 12);
+
+    /**
+     * 16kHz 기준 25ms 창, 10ms 이동 (음성 인식에서 흔히 쓰는 설정)
+     */
+    public static final SLFeatureProfile FINE = new SLFeatureProfile("fine", CANONICAL_SAMPLE_RATE, 400, 160, 512, 13);
+
+    /**
+     * 이름으로 찾을 수 있는 프로필들
+     */
+    public static final SLFeatureProfile[] PRESETS = {LEGACY, COARSE, STANDARD, FINE};
+
+    /**
+     * 프로필이 지정되지 않은 워드가 사용하는 프로필
+     */
+    public static SLFeatureProfile DEFAULT = LEGACY;
+
+    /**
+     * 프로필 이름
+     */
+    public final String name;
+
+    /**
+     * 정규 샘플 레이트. 0이라면 원래의 샘플 레이트를 유지한다.
+     */
+    public final int sampleRate;
+
+    /**
+     * 분석 창의 크기
+     */
+    public final int windowSize;
+
+    /**
+     * 프레임 간 이동 크기
+     */
+    public final int hopSize;
+
+    /**
+     * FFT 크기
+     */
+    public final int fftSize;
+
+    /**
+     * MFCC 계수의 수
+     */
+    public final int coefficientNumber;
+
+    /**
+     * 기존 추출 방식을 재현하는지 여부
+     */
+    public final boolean legacy;
+
+    /**
+     * 새 프로필을 생성한다.
+     *
+     * @param name
+     * @param sampleRate        정규 샘플 레이트 (0이라면 변환하지 않는다)
+     * @param windowSize
+     * @param hopSize
+     * @param fftSize           창 크기 이상인 2의 거듭제곱
+     * @param coefficientNumber
+     * @throws IllegalArgumentException 값이 유효하지 않을 경우
+     */
+    public SLFeatureProfile(String name, int sampleRate, int windowSize, int hopSize, int fftSize, int coefficientNumber) {
+        this(name, sampleRate, windowSize, hopSize, fftSize, coefficientNumber, false);
+
+        if (sampleRate != 0 && sampleRate < MINIMUM_SAMPLE_RATE)
+            throw new IllegalArgumentException("Invalid sample rate " + sampleRate + ".");
+
+        if (windowSize < 2 || hopSize < 1 || hopSize > windowSize)
+            throw new IllegalArgumentException("Invalid window " + windowSize + " / hop " + hopSize + ".");
+
+        if (fftSize < windowSize || Integer.bitCount(fftSize) != 1)
+            throw new IllegalArgumentException("FFT size " + fftSize + " is not a power of two of at least " + windowSize + ".");
+
+        if (coefficientNumber < 1 || coefficientNumber >= MEL_FILTER_NUMBER)
+            throw new IllegalArgumentException("Invalid coefficient number " + coefficientNumber + ".");
+    }
+
+    private SLFeatureProfile(String name, int sampleRate, int windowSize, int hopSize, int fftSize, int coefficientNumber,
+                             boolean legacy) {
+        this.name = name;
+        this.sampleRate = sampleRate;
+        this.windowSize = windowSize;
+        this.hopSize = hopSize;
+        this.fftSize = fftSize;
+        this.coefficientNumber = coefficientNumber;
+        this.legacy = legacy;
+    }
+
+    /**
+     * 이름으로 프로필을 찾는다. 없다면 null을 리턴한다.
+     *
+     * @param name
+     * @return
+     */
+    public static SLFeatureProfile fromName(String name) {
+
+        for (SLFeatureProfile profile : PRESETS) {
+            if (profile.name.equals(name))
+                return profile;
+        }
+        return null;
+    }
+
+    /**
+     * 연속된 프레임이 겹치는 크기
+     *
+     * @return
+     */
+    public int getOverlap() {
+        return windowSize - hopSize;
+    }
+
+    /**
+     * 추출 결과를 결정하는 파라미터들을 나타내는 문자열을 리턴한다.
+     * 값이 같다면 같은 음성 데이터로부터 같은 특징행렬이 추출된다. 프로필 이름은 포함하지 않는다.
+     *
+     * @return
+     */
+    public String getSignature() {
+
+        // LEGACY는 이전 버전이 저장한 캐시를 그대로 사용할 수 있도록 기존 형식을 유지한다.
+        if (legacy)
+            return "mfcc-v" + SLFeatureExtractor.FEATURE_VERSION + ":" + windowSize + ":" + getOverlap() + ":" + coefficientNumber;
+
+        return "mfcc-v" + SLFeatureExtractor.FEATURE_VERSION + ":r" + sampleRate + ":w" + windowSize + ":h" + hopSize + ":f" + fftSize
+                + ":c" + coefficientNumber;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + (sampleRate > 0 ? sampleRate + "Hz" : "native rate") + ", window " + windowSize + ", hop " + hopSize + ", fft " + fftSize + ", " + coefficientNumber
+                + " coefficients)";
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.io.TarsosDSPAudioFloatConverter;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 메모리 상의 PCM 데이터를 겹치는 프레임으로 나누어 오디오 처리기들에 전달하는, 재사용 가능한 디스패처
+ * <p>
+ * AudioDispatcherFactory.fromFloatArray()로 만든 AudioDispatcher와 같은 프레임(16bit 양자화, 첫 버퍼는 가득,
+ * 마지막 버퍼는 0으로 채움)을 만들지만, 스트림을 거치지 않고 버퍼와 이벤트를 다음 음성에서도 재사용한다.
+ * 디스패처는 공유 풀에서 빌려 쓰며, 한 번에 한 스레드만 사용해야 한다.
+ */
+public class SLFrameDispatcher {
+
+    /**
+     * 보관하는 디스패처의 최대 수
+     */
+    public static int POOL_CAPACITY = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 모든 스레드가 공유하는 디스패처 풀. 요청마다 새 스레드(virtual thread 등)에서 추출하더라도 재사용된다.
+     */
+    private static final BlockingQueue<SLFrameDispatcher> pool = new ArrayBlockingQueue<>(Math.max(POOL_CAPACITY, 1));
+
+    private TarsosDSPAudioFormat format;
+    private TarsosDSPAudioFloatConverter converter;
+    private AudioEvent audioEvent;
+
+    /**
+     * 16bit로 양자화된 전체 음성
+     */
+    private byte[] audioBytes = new byte[0];
+
+    private float[] floatBuffer = new float[0];
+    private byte[] byteBuffer = new byte[0];
+
+    /**
+     * 현재 음성의 상태
+     */
+    private int length;
+    private int position;
+    private long bytesProcessed;
+    private int overlap;
+    private int stepSize;
+
+    /**
+     * 풀에서 디스패처를 가져온다. 쉬고 있는 디스패처가 없다면 새로 만든다.
+     *
+     * @return
+     */
+    public static SLFrameDispatcher acquire() {
+
+        SLFrameDispatcher dispatcher = pool.poll();
+
+        return dispatcher != null ? dispatcher : new SLFrameDispatcher();
+    }
+
+    /**
+     * 다 쓴 디스패처를 풀에 돌려준다. 풀이 가득 찼다면 버린다.
+     *
+     * @param dispatcher
+     */
+    public static void release(SLFrameDispatcher dispatcher) {
+        pool.offer(dispatcher);
+    }
+
+    /**
+     * 처리되는 음성의 포맷. 샘플 레이트가 같다면 같은 객체가 유지된다.
+     *
+     * @param sampleRate
+     * @return
+     */
+    public TarsosDSPAudioFormat getFormat(int sampleRate) {
+
+        if (format == null || format.getSampleRate() != sampleRate) {
+            format = new TarsosDSPAudioFormat(sampleRate, 16, 1, true, false);
+            converter = TarsosDSPAudioFloatConverter.getConverter(format);
+            audioEvent = new AudioEvent(format);
+        }
+
+        return format;
+    }
+
+    /**
+     * 음성을 프레임 단위로 처리기들에 전달한 후, 모든 처리기의 processingFinished()를 호출한다.
+     *
+     * @param pcmData
+     * @param bufferSize
+     * @param bufferOverlap
+     * @param processors
+     */
+    public void run(SLPcmData pcmData, int bufferSize, int bufferOverlap, List<AudioProcessor> processors) {
+
+        getFormat(pcmData.sampleRate);
+
+        // fromFloatArray()와 같이 16bit로 양자화한다.
+        length = pcmData.data.length * 2;
+        if (audioBytes.length < length)
+            audioBytes = new byte[length];
+        converter.toByteArray(pcmData.data, 0, pcmData.data.length, audioBytes, 0);
+
+        if (floatBuffer.length != bufferSize) {
+            floatBuffer = new float[bufferSize];
+            byteBuffer = new byte[bufferSize * 2];
+        } else {
+            // 새 디스패처와 같이 빈 버퍼에서 시작한다.
+            Arrays.fill(floatBuffer, 0);
+            Arrays.fill(byteBuffer, (byte) 0);
+        }
+
+        position = 0;
+        bytesProcessed = 0;
+        overlap = bufferOverlap;
+        stepSize = bufferSize - bufferOverlap;
+
+        audioEvent.setBytesProcessed(0);
+        audioEvent.setFloatBuffer(floatBuffer);
+        audioEvent.setOverlap(bufferOverlap);
+
+        int bytesRead = readNextBlock();
+
+        while (bytesRead != 0) {
+
+            for (AudioProcessor processor : processors) {
+                if (!processor.process(audioEvent))
+                    break;
+            }
+
+            bytesProcessed += bytesRead;
+            audioEvent.setBytesProcessed(bytesProcessed);
+
+            bytesRead = readNextBlock();
+            audioEvent.setOverlap(overlap);
+        }
+
+        for (AudioProcessor processor : processors)
+            processor.processingFinished();
+    }
+
+    /**
+     * 다음 프레임을 읽는다. 첫 프레임은 버퍼 전체를, 이후에는 겹치지 않는 부분만 새로 읽는다.
+     *
+     * @return 읽은 바이트 수
+     */
+    private int readNextBlock() {
+
+        boolean firstBuffer = bytesProcessed == 0;
+
+        int bytesToRead = firstBuffer ? byteBuffer.length : stepSize * 2;
+        int offsetInBytes = firstBuffer ? 0 : overlap * 2;
+        int offsetInSamples = firstBuffer ? 0 : overlap;
+
+        if (!firstBuffer)
+            System.arraycopy(floatBuffer, stepSize, floatBuffer, 0, overlap);
+
+        int bytesRead = Math.min(bytesToRead, length - position);
+        System.arraycopy(audioBytes, position, byteBuffer, offsetInBytes, bytesRead);
+        position += bytesRead;
+
+        if (bytesRead < bytesToRead) {
+            // 마지막 버퍼는 0으로 채운다.
+            Arrays.fill(byteBuffer, offsetInBytes + bytesRead, byteBuffer.length, (byte) 0);
+            converter.toFloatArray(byteBuffer, offsetInBytes, floatBuffer, offsetInSamples, stepSize);
+        } else if (firstBuffer) {
+            converter.toFloatArray(byteBuffer, 0, floatBuffer, 0, floatBuffer.length);
+        } else {
+            converter.toFloatArray(byteBuffer, offsetInBytes, floatBuffer, offsetInSamples, stepSize);
+        }
+
+        audioEvent.setFloatBuffer(floatBuffer);
+        audioEvent.setOverlap(offsetInSamples);
+
+        return bytesRead;
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+/**
+ * DTW의 가장 안쪽 루프인 프레임 간 Euclidean 거리를 계산하는 커널
+ * <p>
+ * 한 번의 호출로 한 프레임과 상대 행렬의 연속된 프레임들 사이의 거리를 구하므로,
+ * 구현은 DTW 한 행의 지역 거리를 한꺼번에 계산할 수 있다.
+ */
+public interface SLFrameKernel {
+
+    /**
+     * 커널의 이름. 커널마다 거리의 반올림 오차가 다를 수 있으므로 거리 캐시의 서명에 포함된다.
+     *
+     * @return
+     */
+    String getId();
+
+    /**
+     * n의 frame번째 프레임과 m의 from번째부터 to - 1번째 프레임까지의 거리를 costs[from]부터 costs[to - 1]까지 기록한다.
+     * 두 행렬의 차원은 같아야 한다.
+     *
+     * @param n
+     * @param frame
+     * @param m
+     * @param from
+     * @param to
+     * @param costs
+     */
+    void getDistances(SLFrameMatrix n, int frame, SLFrameMatrix m, int from, int to, double[] costs);
+}
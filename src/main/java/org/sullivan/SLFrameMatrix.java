@@ -0,0 +1,124 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 특성행렬을 하나의 연속된 primitive 버퍼로 표현하는 클래스
+ * <p>
+ * i번째 프레임의 k번째 계수는 data[i * dimension + k]에 위치한다.
+ * List<float[]>를 거치지 않으므로 DTW 내부 루프에서 캐시 효율이 좋다.
+ * <p>
+ * 한 프레임과 여러 프레임의 거리를 한 번에 계산하는 벡터 커널을 위해 계수별로 모은 배치(structure of arrays)도 함께 보관한다.
+ */
+public class SLFrameMatrix {
+
+    /**
+     * 프레임 데이터 (row-major)
+     */
+    public final float[] data;
+
+    /**
+     * 프레임의 수
+     */
+    public final int frames;
+
+    /**
+     * 프레임 하나의 계수 수
+     */
+    public final int dimension;
+
+    /**
+     * 계수별 최소값과 최대값 (모든 프레임을 감싸는 envelope)
+     * DTW 거리의 하한을 빠르게 구하는 데 사용된다.
+     */
+    public final float[] lowerEnvelope;
+    public final float[] upperEnvelope;
+
+    /**
+     * 계수별로 모은 프레임 데이터. i번째 프레임의 k번째 계수는 columns[k * frames + i]에 위치한다.
+     */
+    public final float[] columns;
+
+    public SLFrameMatrix(float[] data, int frames, int dimension) {
+        this.data = data;
+        this.frames = frames;
+        this.dimension = dimension;
+
+        lowerEnvelope = new float[dimension];
+        upperEnvelope = new float[dimension];
+
+        Arrays.fill(lowerEnvelope, Float.POSITIVE_INFINITY);
+        Arrays.fill(upperEnvelope, Float.NEGATIVE_INFINITY);
+
+        columns = new float[frames * dimension];
+
+        for (int i = 0; i < frames; i++) {
+
+            int offset = i * dimension;
+            for (int k = 0; k < dimension; k++) {
+                float value = data[offset + k];
+
+                lowerEnvelope[k] = Math.min(lowerEnvelope[k], value);
+                upperEnvelope[k] = Math.max(upperEnvelope[k], value);
+
+                columns[k * frames + i] = value;
+            }
+        }
+    }
+
+    /**
+     * 특성행렬 리스트로부터 프레임 버퍼를 생성한다.
+     *
+     * @param matrix
+     * @return
+     */
+    public static SLFrameMatrix fromList(List<float[]> matrix) {
+
+        int frames = matrix.size();
+        int dimension = frames > 0 ? matrix.get(0).length : 0;
+
+        float[] data = new float[frames * dimension];
+
+        for (int i = 0; i < frames; i++) {
+            System.arraycopy(matrix.get(i), 0, data, i * dimension, dimension);
+        }
+
+        return new SLFrameMatrix(data, frames, dimension);
+    }
+
+    /**
+     * 프레임 버퍼를 특성행렬 리스트로 변환한다.
+     *
+     * @return
+     */
+    public List<float[]> toList() {
+
+        List<float[]> matrix = new ArrayList<>(frames);
+
+        for (int i = 0; i < frames; i++) {
+            float[] frame = new float[dimension];
+            System.arraycopy(data, i * dimension, frame, 0, dimension);
+            matrix.add(frame);
+        }
+
+        return matrix;
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+import be.tarsos.dsp.AudioEvent;
+
+/**
+ * 볼륨 일반화, 고주파수 보상, 대역 통과 필터를 한 번에 적용하는 프레임 전처리기
+ * <p>
+ * SLVolumeNormalizer, SLHighFrequencyCompensator, SLVoiceBandpassFilter를 차례로 적용한 것과 같은 결과를 내지만,
+ * 프레임마다 통계를 한 번, 변환을 한 번만 순회하며 결과는 재사용되는 버퍼에 기록한다.
+ * 디스패처의 버퍼는 바꾸지 않으므로 다음 프레임의 겹치는 부분은 원본 그대로 유지된다.
+ */
+public class SLFramePreprocessor extends SLVoiceBandpassFilter {
+
+    public double normalizationCoefficient = 1d;
+
+    public float compensationCoefficient = 0.9f;
+
+    /**
+     * 전처리 결과가 기록되는 버퍼 (프레임 크기가 바뀔 때만 새로 할당된다)
+     */
+    private float[] buffer = new float[0];
+
+    public SLFramePreprocessor(int sampleRate) {
+        super(sampleRate);
+    }
+
+    @Override
+    public boolean process(AudioEvent audioEvent) {
+
+        float[] source = audioEvent.getFloatBuffer();
+        int length = source.length;
+
+        if (buffer.length != length)
+            buffer = new float[length];
+
+        // 1. 평균과 RMS 볼륨
+        double sum = 0d;
+        double squareSum = 0d;
+
+        for (int i = 0; i < length; i++) {
+            double value = source[i];
+            sum += value;
+            squareSum += value * value;
+        }
+
+        double volume = 0d;
+        if (length > 0) {
+            double average = sum / length;
+            volume = Math.sqrt(Math.max(squareSum / length - average * average, 0d));
+        }
+
+        float scale = (float) (normalizationCoefficient / volume);
+
+        // 2. 볼륨 일반화 -> 고주파수 보상 -> 대역 통과 (IIR)
+        float in0 = in[0], in1 = in[1], in2 = in[2];
+        float out0 = out[0], out1 = out[1];
+
+        int overlap = audioEvent.getOverlap();
+        float previous = 0f;
+
+        for (int i = 0; i < length; i++) {
+
+            float current = source[i] * scale;
+            float emphasized = i > 0 ? current - previous * compensationCoefficient : current;
+            previous = current;
+
+            // 겹치는 부분은 이전 프레임에서 이미 필터를 통과했다.
+            if (i < overlap) {
+                buffer[i] = emphasized;
+                continue;
+            }
+
+            in2 = in1;
+            in1 = in0;
+            in0 = emphasized;
+
+            float y = 0;
+            y += a[0] * in0;
+            y += a[1] * in1;
+            y += a[2] * in2;
+            y += b[0] * out0;
+            y += b[1] * out1;
+
+            out1 = out0;
+            out0 = y;
+
+            buffer[i] = y;
+        }
+
+        in[0] = in0;
+        in[1] = in1;
+        in[2] = in2;
+        out[0] = out0;
+        out[1] = out1;
+
+        audioEvent.setFloatBuffer(buffer);
+
+        return true;
+    }
+}
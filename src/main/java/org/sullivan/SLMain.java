@@ -20,9 +20,16 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Sullivan 시스템의 메인
@@ -31,6 +38,11 @@ public class SLMain implements SLCliListener {
 
     public static final String ENGINE_VERSION = "2.1.3";
 
+    /**
+     * load-all 시 동시에 로드할 최대 워드 수
+     */
+    public static int BOOTSTRAP_PARALLELISM = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
     /**
      * 시스템의 Command-line interface
      */
@@ -51,6 +63,11 @@ public class SLMain implements SLCliListener {
      */
     public SLWordExporter wordExporter;
 
+    /**
+     * HTTP 평가 서버
+     */
+    public SLServer server;
+
     /**
      * Node 생성기
      */
@@ -66,9 +83,14 @@ public class SLMain implements SLCliListener {
 
         cli = new SLCli();
 
-        words = new HashMap<>();
+        words = new ConcurrentHashMap<>();
         wordLoader = new SLWordLoader();
         wordExporter = new SLWordExporter();
+        server = new SLServer(words);
+
+        // 데이터 손실을 막기 위해 shutdown hook을 추가한다.
+        // CLI는 입력이 끝날 때까지 리턴하지 않으므로 그 전에 등록해야 한다.
+        Runtime.getRuntime().addShutdownHook(new SLShutdownHook(this));
 
         cli.addEventListener(this);
         cli.initialize();
@@ -118,14 +140,62 @@ public class SLMain implements SLCliListener {
                     cli.error("No such word \'" + wordName + "\'.");
                 else {
                     requestWord = words.get(wordName);
-                    SLNode.fromFile(new File(arguments.get(1).trim()), (SLNode node) -> {
+                    SLNode.fromFile(new File(arguments.get(1).trim()), requestWord.featureProfile, (SLNode node) -> {
                         if (node != null) {
                             SLEvaluationReport report = requestWord.evaluate(node);
-                            cli.notify(report.getResult());
+                            cli.notify(requestWord.read(report::getResult));
                         }
                     });
                 }
                 break;
+            case "score":
+            case "score-learn":
+                wordName = arguments.get(0).trim();
+                if (!words.containsKey(wordName))
+                    cli.error("No such word \'" + wordName + "\'.");
+                else {
+                    SLWord scoringWord = words.get(wordName);
+                    boolean queued = command.equals("score-learn");
+                    SLNode.fromFile(new File(arguments.get(1).trim()), scoringWord.featureProfile, (SLNode node) -> {
+                        if (node != null) {
+                            SLEvaluationReport report = scoringWord.score(node);
+                            cli.notify(scoringWord.read(report::getResult));
+
+                            // 모델에는 'learn' 명령을 실행할 때 반영된다.
+                            if (queued && scoringWord.learn(report))
+                                cli.notify(scoringWord.getPendingLearningCount() + " scored pronunciations are waiting to be learned.");
+                        }
+                    });
+                }
+                break;
+            case "learn":
+                wordName = arguments.get(0).trim();
+                if (!words.containsKey(wordName))
+                    cli.error("No such word \'" + wordName + "\'.");
+                else
+                    cli.notify(words.get(wordName).applyLearning() + " scored pronunciations are learned.");
+                break;
+            case "evaluate-batch":
+                wordName = arguments.get(0).trim();
+                if (!words.containsKey(wordName))
+                    cli.error("No such word \'" + wordName + "\'.");
+                else
+                    evaluateBatch(words.get(wordName), new File(arguments.get(1).trim()));
+                break;
+            case "serve":
+                if (!arguments.get(0).trim().matches("^\\d+$"))
+                    cli.error("Invalid port \'" + arguments.get(0).trim() + "\'.");
+                else if (server.isRunning())
+                    cli.error("Server is already running on port " + server.getPort() + ".");
+                else {
+                    try {
+                        server.start(Integer.parseInt(arguments.get(0).trim()));
+                        cli.notify("Server is listening on port " + server.getPort() + ".");
+                    } catch (IOException | IllegalArgumentException e) {
+                        cli.error("Failed to start server: " + e.getMessage());
+                    }
+                }
+                break;
             case "status":
                 wordName = arguments.get(0).trim();
                 if (!words.containsKey(wordName))
@@ -135,6 +205,45 @@ public class SLMain implements SLCliListener {
                     cli.notify(words.get(wordName).getStatus());
                 }
                 break;
+            case "warping":
+                wordName = arguments.get(0).trim();
+                if (!words.containsKey(wordName))
+                    cli.error("No such word \'" + wordName + "\'.");
+                else if (!arguments.get(2).trim().matches("^\\d*\\.?\\d+$"))
+                    cli.error("Invalid warping ratio \'" + arguments.get(2).trim() + "\'.");
+                else {
+                    SLWarpingWindow window = SLWarpingWindow.fromLabel(arguments.get(1).trim(),
+                            Float.parseFloat(arguments.get(2).trim()));
+                    if (window == null)
+                        cli.error("Unknown warping window \'" + arguments.get(1).trim() + "\'.");
+                    else {
+                        cli.notify(words.get(wordName).compareWarpingWindow(window));
+                        words.get(wordName).setWarpingWindow(window);
+                        cli.notify("Warping window of \'" + wordName + "\' is set to " + window + ".");
+                    }
+                }
+                break;
+            case "profile":
+                wordName = arguments.get(0).trim();
+                if (!words.containsKey(wordName))
+                    cli.error("No such word \'" + wordName + "\'.");
+                else if (SLFeatureProfile.fromName(arguments.get(1).trim()) == null)
+                    cli.error("Unknown feature profile \'" + arguments.get(1).trim() + "\'.");
+                else {
+                    // 새 프로필로 저장한 후 다시 로드한다. 로드가 끝날 때까지는 기존 워드가 사용된다.
+                    SLFeatureProfile profile = SLFeatureProfile.fromName(arguments.get(1).trim());
+                    wordExporter.export(words.get(wordName), profile);
+                    loadWord(wordName);
+                    cli.notify("Feature profile of \'" + wordName + "\' is set to " + profile + ".");
+                }
+                break;
+            case "benchmark":
+                wordName = arguments.get(0).trim();
+                if (!words.containsKey(wordName))
+                    cli.error("No such word \'" + wordName + "\'.");
+                else
+                    benchmark(words.get(wordName), arguments.get(1).trim());
+                break;
             case "resolve":
                 if (descriptionRequest != null) {
                     cli.notify("There is already a request waiting for your response.");
@@ -179,11 +288,14 @@ public class SLMain implements SLCliListener {
 
     /**
      * 워드 배치 파일 (words.sullivan)에 입력되어 있는 단어들을 전부 로드한다.
+     * 최대 BOOTSTRAP_PARALLELISM개의 워드를 동시에 로드하며, 모든 워드의 클러스터 분석이 끝난 후 리턴한다.
      *
      * @return
      */
     private boolean loadAllWordsFromBatch() {
 
+        List<String> wordNames = new ArrayList<>();
+
         try (BufferedReader reader = new BufferedReader(new FileReader("words.sullivan"))) {
             for (String line; (line = reader.readLine()) != null; ) {
 
@@ -193,20 +305,199 @@ public class SLMain implements SLCliListener {
                 // 빈 공간은 처리하지 않는다.
                 if (line.length() < 1) continue;
 
-                // 워드 로드
-                wordLoader.load(new File("./data/" + line + ".word"), (SLWord word) -> {
-                    cli.notify("Word \'" + word.name + "\' loaded.");
-                    words.put(word.name, word);
-                });
+                wordNames.add(line);
             }
         } catch (IOException e) {
             e.printStackTrace();
             return false;
         }
-        cli.notify("Initialization successful");
+
+        long startTime = System.currentTimeMillis();
+
+        ExecutorService bootstrapExecutor = Executors.newFixedThreadPool(BOOTSTRAP_PARALLELISM);
+        CountDownLatch remainingWords = new CountDownLatch(wordNames.size());
+
+        for (String wordName : wordNames) {
+            bootstrapExecutor.execute(() -> {
+                try {
+                    loadWord(wordName);
+                } finally {
+                    remainingWords.countDown();
+                }
+            });
+        }
+
+        bootstrapExecutor.shutdown();
+
+        try {
+            remainingWords.await();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            bootstrapExecutor.shutdownNow();
+            return false;
+        }
+
+        cli.notify("Initialization successful (" + words.size() + " / " + wordNames.size() + " words, "
+                + (System.currentTimeMillis() - startTime) + "ms)");
         return true;
     }
 
+    /**
+     * 워드 하나를 로드하고 클러스터 분석이 끝날 때까지 기다린다.
+     *
+     * @param wordName
+     */
+    private void loadWord(String wordName) {
+
+        long startTime = System.currentTimeMillis();
+        CountDownLatch generated = new CountDownLatch(1);
+
+        int dispatchedWords = wordLoader.load(new File("./data/" + wordName + ".word"), new SLWordLoaderListener() {
+            @Override
+            public void onWordGenerated(SLWord word) {
+                words.put(word.name, word);
+                cli.notify("Word \'" + word.name + "\' loaded. (" + (System.currentTimeMillis() - startTime) + "ms)");
+                generated.countDown();
+            }
+
+            @Override
+            public void onWordFailed(String failedWordName) {
+                cli.error("Failed to load word \'" + failedWordName + "\'.");
+                generated.countDown();
+            }
+        });
+
+        if (dispatchedWords < 1) {
+            cli.error("Failed to load word \'" + wordName + "\'.");
+            return;
+        }
+
+        try {
+            generated.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 디렉토리 내의 모든 음성 파일, 또는 목록 파일에 적힌 음성 파일들을 한 번에 평가한다.
+     * 특징 추출은 병렬로 이루어지며, 결과는 한 줄에 하나씩 JSON 형식으로 기록된다.
+     *
+     * @param word
+     * @param target 디렉토리 또는 한 줄에 하나씩 음성 파일 경로가 적힌 목록 파일
+     */
+    private void evaluateBatch(SLWord word, File target) {
+
+        List<File> sources = new ArrayList<>();
+
+        if (target.isDirectory()) {
+            File[] files = target.listFiles((File file) -> file.getName().toLowerCase().matches(".*\\.(wav|spd|sns)$"));
+            if (files != null) {
+                Arrays.sort(files);
+                sources.addAll(Arrays.asList(files));
+            }
+        } else {
+            try (BufferedReader reader = new BufferedReader(new FileReader(target))) {
+                for (String line; (line = reader.readLine()) != null; ) {
+                    if (line.trim().length() > 0)
+                        sources.add(new File(line.trim()));
+                }
+            } catch (IOException e) {
+                cli.error("Unable to read \'" + target.getPath() + "\'.");
+                return;
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+
+        // 특징 추출 (병렬)
+        SLNode[] attempts = new SLNode[sources.size()];
+        ExecutorService extractionExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+        for (int i = 0; i < sources.size(); i++) {
+            final int index = i;
+            extractionExecutor.execute(() -> {
+                try {
+                    SLNode.fromFile(sources.get(index), word.featureProfile, (SLNode node) -> attempts[index] = node);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+
+        extractionExecutor.shutdown();
+
+        try {
+            extractionExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            extractionExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        List<SLNode> nodes = new ArrayList<>();
+        for (int i = 0; i < attempts.length; i++) {
+            if (attempts[i] != null)
+                nodes.add(attempts[i]);
+            else
+                cli.error("Failed to extract features from \'" + sources.get(i).getPath() + "\'.");
+        }
+
+        List<SLEvaluationReport> reports = word.evaluateBatch(nodes);
+
+        File output = new File("./data/" + word.name + "-" + System.currentTimeMillis() + ".jsonl");
+
+        int failed = 0;
+
+        try (PrintWriter writer = new PrintWriter(output, "UTF-8")) {
+            for (SLEvaluationReport report : reports) {
+                writer.println(word.read(report::getResultAsJson));
+                if (report.classifiedAsFailure) failed++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        cli.notify(reports.size() + " pronunciations evaluated (" + (reports.size() - failed) + " succeed, "
+                + failed + " failed, " + (System.currentTimeMillis() - startTime) + "ms).");
+        cli.notify("Report is saved to [" + output.getPath() + "]");
+    }
+
+    /**
+     * 워드의 노드들로 특징 추출 프로필별 비용과 정확도를 비교한다.
+     *
+     * @param word
+     * @param profileNames 쉼표로 구분된 프로필 이름들. 'all'이면 워드의 프로필과 모든 기본 프로필을 비교한다.
+     */
+    private void benchmark(SLWord word, String profileNames) {
+
+        List<SLFeatureProfile> profiles = new ArrayList<>();
+
+        if (profileNames.equals("all")) {
+            profiles.addAll(Arrays.asList(SLFeatureProfile.PRESETS));
+            if (!profiles.contains(word.featureProfile))
+                profiles.add(0, word.featureProfile);
+        } else {
+            for (String profileName : profileNames.split(",")) {
+                SLFeatureProfile profile = SLFeatureProfile.fromName(profileName.trim());
+                if (profile == null) {
+                    cli.error("Unknown feature profile \'" + profileName.trim() + "\'.");
+                    return;
+                }
+                profiles.add(profile);
+            }
+        }
+
+        SLProfileBenchmark benchmark = new SLProfileBenchmark(word);
+
+        if (benchmark.size() < 2) {
+            cli.error("Word \'" + word.name + "\' has not enough saved pronunciations to benchmark.");
+            return;
+        }
+
+        cli.notify(benchmark.run(profiles));
+    }
 
     /**
      * 노드가 생성되었을 때 호출된다.
@@ -216,16 +507,12 @@ public class SLMain implements SLCliListener {
     public void onFeatureExtracted(SLNode node) {
         if (requestWord != null) {
             SLEvaluationReport report = requestWord.evaluate(node);
-            cli.notify(report.getResult());
+            cli.notify(requestWord.read(report::getResult));
         }
     }
 
     public static void main(String[] args) {
 
-        SLMain entry = new SLMain();
-
-        // 데이터 손실을 막기 위해 shutdown hook을 추가한다.
-        Runtime.getRuntime().addShutdownHook(new Thread(new SLShutdownHook(entry)));
-        entry.words.get("hello");
+        new SLMain();
     }
 }
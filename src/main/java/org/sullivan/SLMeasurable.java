@@ -22,4 +22,26 @@ package org.sullivan;
 public interface SLMeasurable<T> {
 
     double getDistance(T t);
+
+    /**
+     * cutoff를 넘는 것이 확실해지면 계산을 중단할 수 있는 거리.
+     * cutoff 이하라면 getDistance와 같은 값을, 그렇지 않다면 cutoff보다 큰 임의의 값을 리턴한다.
+     *
+     * @param t
+     * @param cutoff
+     * @return
+     */
+    default double getDistance(T t, double cutoff) {
+        return getDistance(t);
+    }
+
+    /**
+     * 거리의 하한. 실제 거리보다 크지 않은 값을 빠르게 구한다.
+     *
+     * @param t
+     * @return
+     */
+    default double getLowerBound(T t) {
+        return 0;
+    }
 }
@@ -0,0 +1,43 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+/**
+ * 두 원소 간 거리를 계산하는 방법
+ */
+public interface SLMetric<T> {
+
+    double getDistance(T element1, T element2);
+
+    /**
+     * cutoff를 넘는 것이 확실해지면 계산을 중단할 수 있는 거리
+     *
+     * @see SLMeasurable#getDistance(Object, double)
+     */
+    default double getDistance(T element1, T element2, double cutoff) {
+        return getDistance(element1, element2);
+    }
+
+    /**
+     * 거리의 하한
+     *
+     * @see SLMeasurable#getLowerBound(Object)
+     */
+    default double getLowerBound(T element1, T element2) {
+        return 0;
+    }
+}
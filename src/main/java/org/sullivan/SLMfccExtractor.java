@@ -18,15 +18,41 @@ package org.sullivan;
 
 import be.tarsos.dsp.AudioEvent;
 import be.tarsos.dsp.mfcc.MFCC;
+import be.tarsos.dsp.util.fft.FFT;
+import be.tarsos.dsp.util.fft.HammingWindow;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 음성 데이터로부터 특징행렬(Feature Matrix)를 계산한다.
+ * <p>
+ * mel 필터 뱅크와 FFT 테이블을 만드는 비용이 크므로, 추출기는 파라미터별로 공유 풀에 보관되어 재사용된다.
+ * 창이 FFT 크기보다 작으면 창 길이의 Hamming window를 적용한 후 나머지를 0으로 채워 변환한다.
  */
 public class SLMfccExtractor extends MFCC {
 
+    /**
+     * 파라미터별로 보관하는 추출기의 최대 수
+     */
+    public static int POOL_CAPACITY = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 모든 스레드가 공유하는 추출기 풀 (창 크기, FFT 크기, 샘플 레이트, 계수 수 -> 쉬고 있는 추출기들)
+     * 요청마다 새 스레드(virtual thread 등)에서 추출하더라도 재사용된다.
+     */
+    private static final Map<String, BlockingQueue<SLMfccExtractor>> pool = new ConcurrentHashMap<>();
+
+    /**
+     * 풀에서 찾기 위한 키
+     */
+    private String key;
+
     /**
      * 계산된 특징행렬
      */
@@ -35,12 +61,77 @@ public class SLMfccExtractor extends MFCC {
     // 재활용 시 초기화를 위한 상태변수
     private boolean afterProcessing = false;
 
+    /**
+     * 0으로 채워 변환할 때 사용하는 창 함수, FFT와 버퍼. 창과 FFT 크기가 같다면 null이다.
+     */
+    private float[] windowCurve;
+    private FFT paddedFft;
+    private float[] paddedFrame;
+    private float[] spectrum;
+
     public SLMfccExtractor(int bufferSize, int sampleRate, int featureNumber) {
-        super(bufferSize, sampleRate, featureNumber, 30, 133.3334f, (float) sampleRate / 2f);
+        this(bufferSize, bufferSize, sampleRate, featureNumber);
+    }
+
+    public SLMfccExtractor(int windowSize, int fftSize, int sampleRate, int featureNumber) {
+        super(fftSize, sampleRate, featureNumber, SLFeatureProfile.MEL_FILTER_NUMBER, 133.3334f, (float) sampleRate / 2f);
+
+        if (windowSize < fftSize) {
+            windowCurve = new HammingWindow().generateCurve(windowSize);
+            paddedFft = new FFT(fftSize);
+            paddedFrame = new float[fftSize];
+            spectrum = new float[fftSize];
+        }
 
         featureMatrix = new ArrayList<>();
     }
 
+    /**
+     * 풀에서 추출기를 가져온다. 쉬고 있는 추출기가 없다면 새로 만든다.
+     *
+     * @param windowSize
+     * @param fftSize
+     * @param sampleRate
+     * @param featureNumber
+     * @return 초기화된 추출기
+     */
+    public static SLMfccExtractor acquire(int windowSize, int fftSize, int sampleRate, int featureNumber) {
+
+        String key = windowSize + ":" + fftSize + ":" + sampleRate + ":" + featureNumber;
+
+        BlockingQueue<SLMfccExtractor> idle = pool.get(key);
+        SLMfccExtractor extractor = idle != null ? idle.poll() : null;
+
+        if (extractor == null) {
+            extractor = new SLMfccExtractor(windowSize, fftSize, sampleRate, featureNumber);
+            extractor.key = key;
+        }
+
+        extractor.reset();
+
+        return extractor;
+    }
+
+    /**
+     * 다 쓴 추출기를 풀에 돌려준다. 이후 특징행렬은 다시 초기화되므로 미리 복사해 두어야 한다.
+     * 풀이 가득 찼다면 버린다.
+     *
+     * @param extractor
+     */
+    public static void release(SLMfccExtractor extractor) {
+        if (extractor.key != null)
+            pool.computeIfAbsent(extractor.key, (String key) -> new ArrayBlockingQueue<>(Math.max(POOL_CAPACITY, 1)))
+                    .offer(extractor);
+    }
+
+    /**
+     * 계산된 특징행렬을 비운다.
+     */
+    public void reset() {
+        featureMatrix.clear();
+        afterProcessing = false;
+    }
+
     /**
      * 특징행렬을 리턴한다.
      *
@@ -50,6 +141,33 @@ public class SLMfccExtractor extends MFCC {
         return featureMatrix;
     }
 
+    /**
+     * 진폭 스펙트럼을 구한다. 배열 배치는 MFCC.magnitudeSpectrum()과 같다.
+     *
+     * @param frame
+     * @return
+     */
+    @Override
+    public float[] magnitudeSpectrum(float[] frame) {
+
+        if (windowCurve == null)
+            return super.magnitudeSpectrum(frame);
+
+        Arrays.fill(paddedFrame, 0);
+        for (int i = 0; i < windowCurve.length; i++)
+            paddedFrame[i] = frame[i] * windowCurve[i];
+
+        paddedFft.forwardTransform(paddedFrame);
+
+        int half = paddedFrame.length / 2;
+        for (int i = 0; i < half; i++) {
+            spectrum[half + i] = paddedFft.modulus(paddedFrame, half - 1 - i);
+            spectrum[half - 1 - i] = spectrum[half + i];
+        }
+
+        return spectrum;
+    }
+
     @Override
     public boolean process(AudioEvent audioEvent) {
 
@@ -0,0 +1,195 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 워드 모델의 변경을 하나의 백그라운드 스레드에서 순서대로 처리하는 클래스
+ * <p>
+ * 노드 삽입, centroid 갱신, description 요청처럼 모델을 바꾸는 작업은 모두 이 큐를 거치며,
+ * 워드의 write lock을 잡은 상태에서 실행된다. 평가는 read lock만 잡으므로
+ * 클러스터링 작업을 기다리지 않고 리포트를 리턴하며, 항상 두 변경 사이의 일관된 모델을 보게 된다.
+ */
+public class SLModelUpdater {
+
+    private ExecutorService executor;
+
+    /**
+     * 워드 모델 lock
+     */
+    private ReadWriteLock lock;
+
+    /**
+     * 아직 끝나지 않은 작업의 수
+     */
+    private AtomicInteger pending;
+
+    public SLModelUpdater(String name, ReadWriteLock lock) {
+
+        this.lock = lock;
+        this.pending = new AtomicInteger();
+
+        this.executor = Executors.newSingleThreadExecutor((Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "sullivan-updater-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 모델 변경 작업을 큐에 넣는다.
+     *
+     * @param update
+     * @return
+     */
+    public Future<?> submit(Runnable update) {
+        return submit(() -> {
+            update.run();
+            return null;
+        });
+    }
+
+    /**
+     * 결과가 있는 모델 변경 작업을 큐에 넣는다.
+     *
+     * @param update
+     * @return
+     */
+    public <V> Future<V> submit(Callable<V> update) {
+
+        pending.incrementAndGet();
+
+        try {
+            return executor.submit(() -> {
+                lock.writeLock().lock();
+                try {
+                    return update.call();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    throw e;
+                } finally {
+                    lock.writeLock().unlock();
+                    pending.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * 작업을 큐에 넣고 끝날 때까지 기다린다. 작업이 실패했다면 null을 리턴한다.
+     * 업데이트 스레드에서 호출하면 안 된다.
+     *
+     * @param update
+     * @return
+     */
+    public <V> V submitAndWait(Callable<V> update) {
+
+        Future<V> future = submit(update);
+
+        boolean interrupted = false;
+
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            return null;
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 워드의 read lock을 잡은 상태에서 모델을 읽는다. 워드 참조가 없는 클러스터 쪽에서 사용한다.
+     *
+     * @param reader
+     * @return
+     */
+    public <V> V read(Supplier<V> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 지금까지 큐에 들어간 작업이 모두 끝날 때까지 기다린다.
+     * 이미 종료 중이라면 남은 작업이 모두 처리되어 스레드가 끝날 때까지 기다린다.
+     * 업데이트 스레드에서 호출하면 안 된다.
+     */
+    public void flush() {
+
+        if (!executor.isShutdown()) {
+            try {
+                submitAndWait(() -> null);
+                return;
+            } catch (RejectedExecutionException e) {
+                // 그 사이에 종료되었다.
+            }
+        }
+
+        boolean interrupted = false;
+
+        while (true) {
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * 아직 끝나지 않은 작업의 수
+     *
+     * @return
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * 큐에 남은 작업을 모두 처리한 후 스레드를 종료한다.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -16,7 +16,11 @@
 
 package org.sullivan;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
@@ -48,6 +52,11 @@ public class SLNode implements SLMeasurable<SLNode> {
      */
     public List<float[]> featureMatrix;
 
+    /**
+     * 거리 계산에 사용되는 연속된 형태의 특성행렬
+     */
+    public SLFrameMatrix frameBuffer;
+
     /**
      * 이미 존재하는 특성행렬로 노드 생성
      *
@@ -58,6 +67,20 @@ public class SLNode implements SLMeasurable<SLNode> {
         this.info = info;
         this.descriptions = new ArrayList<>();
         this.featureMatrix = featureMatrix;
+        this.frameBuffer = SLFrameMatrix.fromList(featureMatrix);
+    }
+
+    /**
+     * 이미 존재하는 프레임 버퍼로 노드 생성
+     *
+     * @param frameBuffer
+     */
+    public SLNode(int uid, SLNodeInfo info, SLFrameMatrix frameBuffer) {
+        this.uid = uid;
+        this.info = info;
+        this.descriptions = new ArrayList<>();
+        this.featureMatrix = frameBuffer.toList();
+        this.frameBuffer = frameBuffer;
     }
 
     /**
@@ -69,34 +92,46 @@ public class SLNode implements SLMeasurable<SLNode> {
      * @return
      */
     public double getDistance(SLNode node) {
+        return SLDtw.getDistance(this.frameBuffer, node.frameBuffer);
+    }
 
-        List<float[]> n = this.featureMatrix;
-        List<float[]> m = node.featureMatrix;
-
-        int nl = n.size() + 1;
-        int ml = m.size() + 1;
-
-        double[][] map = new double[nl][ml];
-
-        for (int i = 1; i < nl; i++)
-            map[i][0] = Float.POSITIVE_INFINITY;
-
-        for (int i = 1; i < ml; i++)
-            map[0][i] = Float.POSITIVE_INFINITY;
+    /**
+     * 전역 제약 내에서 다른 노드와의 거리를 계산한다.
+     *
+     * @param node
+     * @param window
+     * @return
+     */
+    public double getDistance(SLNode node, SLWarpingWindow window) {
+        return SLDtw.getDistance(this.frameBuffer, node.frameBuffer, window);
+    }
 
-        map[0][0] = 0;
+    @Override
+    public double getDistance(SLNode node, double cutoff) {
+        return SLDtw.getDistance(this.frameBuffer, node.frameBuffer, SLWarpingWindow.NONE, cutoff);
+    }
 
-        for (int i = 1; i < nl; i++) {
-            for (int j = 1; j < ml; j++) {
-                double cost = getLocalEuclideanDistance(n.get(i - 1), m.get(j - 1));
-                map[i][j] = cost + Math.min(Math.min(
-                        map[i - 1][j], // Insertion
-                        map[i][j - 1]), // Deletion
-                        map[i - 1][j - 1]); // Match
-            }
-        }
+    /**
+     * 전역 제약 내에서, cutoff를 넘는 것이 확실해지면 계산을 중단하는 거리
+     *
+     * @param node
+     * @param window
+     * @param cutoff
+     * @return
+     */
+    public double getDistance(SLNode node, SLWarpingWindow window, double cutoff) {
+        return SLDtw.getDistance(this.frameBuffer, node.frameBuffer, window, cutoff);
+    }
 
-        return map[nl - 1][ml - 1];
+    /**
+     * DTW 거리의 하한을 구한다. 전역 제약과 상관없이 유효하다.
+     *
+     * @param node
+     * @return
+     */
+    @Override
+    public double getLowerBound(SLNode node) {
+        return SLDtw.getLowerBound(this.frameBuffer, node.frameBuffer);
     }
 
     /**
@@ -106,32 +141,22 @@ public class SLNode implements SLMeasurable<SLNode> {
      * @return
      */
     public double[] getCostPath(SLNode node) {
+        return getCostPath(node, SLWarpingWindow.NONE);
+    }
 
-        List<float[]> n = this.featureMatrix;
-        List<float[]> m = node.featureMatrix;
-
-        int nl = n.size() + 1;
-        int ml = m.size() + 1;
-
-        double[][] map = new double[nl][ml];
-
-        for (int i = 1; i < nl; i++)
-            map[i][0] = Float.POSITIVE_INFINITY;
-
-        for (int i = 1; i < ml; i++)
-            map[0][i] = Float.POSITIVE_INFINITY;
+    /**
+     * 전역 제약 내에서 두 노드 간 cost path를 계산한다.
+     *
+     * @param node
+     * @param window
+     * @return
+     */
+    public double[] getCostPath(SLNode node, SLWarpingWindow window) {
 
-        map[0][0] = 0;
+        int nl = this.frameBuffer.frames + 1;
+        int ml = node.frameBuffer.frames + 1;
 
-        for (int i = 1; i < nl; i++) {
-            for (int j = 1; j < ml; j++) {
-                double cost = getLocalEuclideanDistance(n.get(i - 1), m.get(j - 1));
-                map[i][j] = cost + Math.min(Math.min(
-                        map[i - 1][j], // Insertion
-                        map[i][j - 1]), // Deletion
-                        map[i - 1][j - 1]); // Match
-            }
-        }
+        double[][] map = SLDtw.getCostMatrix(this.frameBuffer, node.frameBuffer, window);
 
         // 여기까진 일반적인 distance 구하는 거랑 일치.
         // 역추적하면 path를 구할 수 있다.
@@ -199,24 +224,6 @@ public class SLNode implements SLMeasurable<SLNode> {
         return cluster;
     }
 
-    /**
-     * 두 특성 행렬의 행에 대해 Euclidean 거리를 계산한다.
-     *
-     * @param a
-     * @param b
-     * @return
-     */
-    private double getLocalEuclideanDistance(float[] a, float[] b) {
-        if (a.length != b.length)
-            return Float.POSITIVE_INFINITY;
-        double sum = 0;
-
-        for (int i = 0; i < a.length; i++) {
-            sum += Math.pow(a[i] - b[i], 2);
-        }
-        return Math.sqrt(sum);
-    }
-
     // 노드의 동일성은 uid로만 판단한다.
     @Override
     public boolean equals(Object node) {
@@ -225,6 +232,11 @@ public class SLNode implements SLMeasurable<SLNode> {
         return this.uid == ((SLNode) node).uid;
     }
 
+    @Override
+    public int hashCode() {
+        return uid;
+    }
+
     /**
      * 노드의 메타데이터를 담는 클래스
      */
@@ -265,18 +277,37 @@ public class SLNode implements SLMeasurable<SLNode> {
         }
     }
 
+    /**
+     * 새 노드에 사용할 uid를 발급한다.
+     *
+     * @return
+     */
+    public static synchronized int nextUid() {
+        return ++maximumUid;
+    }
+
+    /**
+     * 이미 사용 중인 uid를 등록한다. 이후 발급되는 uid는 이보다 크다.
+     *
+     * @param uid
+     */
+    public static synchronized void updateMaximumUid(int uid) {
+        maximumUid = Math.max(maximumUid, uid);
+    }
+
     /**
      * 파일로부터 노드를 생성한다.
      *
      * @param source
+     * @param profile  특징 추출 프로필
      * @param callback
      */
-    public static void fromFile(File source, SLNodeListener callback) {
+    public static void fromFile(File source, SLFeatureProfile profile, SLNodeListener callback) {
 
         SLNodeInfo info = new SLNodeInfo();
         info.recordedDate = new Timestamp(System.currentTimeMillis()).toString();
 
-        fromFile(++SLNode.maximumUid, info, source, callback);
+        fromFile(nextUid(), info, source, profile, callback);
     }
 
     /**
@@ -285,20 +316,32 @@ public class SLNode implements SLMeasurable<SLNode> {
      * @param uid
      * @param info
      * @param source
+     * @param profile
      * @param callback
      */
-    public static void fromFile(final int uid, final SLNodeInfo info, File source, SLNodeListener callback) {
+    public static void fromFile(final int uid, final SLNodeInfo info, File source, SLFeatureProfile profile,
+                                SLNodeListener callback) {
 
         SLPcmData pcmData = null;
-        boolean processed = false;
+        SLFeatureExtractor.Stage stage = SLFeatureExtractor.Stage.RAW;
 
         switch (getFileExtension(source)) {
             case "wav":
                 pcmData = SLPcmData.importWav(source);
                 break;
-            case "spd": // 이미 전처리된 포맷
+            case "sns": // 여백 제거와 화자 일반화까지 끝난 포맷
+            case "spd": // 이미 전처리된 포맷 (이전 버전)
+
+                // 특성행렬이 캐시되어 있다면 디코딩과 추출을 생략한다.
+                SLFrameMatrix cachedMatrix = SLFeatureCache.read(source, profile.getSignature());
+                if (cachedMatrix != null) {
+                    callback.onNodeReady(new SLNode(uid, info, cachedMatrix));
+                    return;
+                }
+
                 pcmData = SLPcmData.importWav(source);
-                processed = true;
+                stage = getFileExtension(source).equals("sns") ? SLFeatureExtractor.Stage.NORMALIZED
+                        : SLFeatureExtractor.Stage.PREPROCESSED;
                 break;
             default:
                 System.out.print("." + getFileExtension(source) + " is Unsupported format.");
@@ -307,19 +350,110 @@ public class SLNode implements SLMeasurable<SLNode> {
 
         if (pcmData == null) return;
 
-        SLFeatureExtractor featureExtractor = new SLFeatureExtractor(5000, 1);
+        fromPcmData(uid, info, pcmData, stage, true, source, profile, callback);
+    }
+
+    /**
+     * 메모리 상의 Wave 또는 RAW PCM 데이터로부터 노드를 생성한다. 임시 파일을 만들지 않는다.
+     *
+     * @param audio
+     * @param profile  특징 추출 프로필
+     * @param persist  일반화된 음성을 ./data/{uid}.sns로 저장할지 여부. 저장은 비동기로 이루어진다.
+     * @param callback
+     */
+    public static void fromBytes(byte[] audio, SLFeatureProfile profile, boolean persist, SLNodeListener callback) {
+
+        SLPcmData pcmData = SLPcmData.fromBytes(audio);
+        if (pcmData == null) return;
+
+        SLNodeInfo info = new SLNodeInfo();
+        info.recordedDate = new Timestamp(System.currentTimeMillis()).toString();
+
+        fromPcmData(nextUid(), info, pcmData, SLFeatureExtractor.Stage.RAW, persist, null, profile, callback);
+    }
+
+    /**
+     * 버퍼의 남은 부분으로부터 노드를 생성한다.
+     *
+     * @param audio
+     * @param profile
+     * @param persist
+     * @param callback
+     */
+    public static void fromBuffer(ByteBuffer audio, SLFeatureProfile profile, boolean persist, SLNodeListener callback) {
+
+        byte[] bytes = new byte[audio.remaining()];
+        audio.duplicate().get(bytes);
+
+        fromBytes(bytes, profile, persist, callback);
+    }
+
+    /**
+     * 스트림의 끝까지 읽어 노드를 생성한다.
+     *
+     * @param input
+     * @param profile
+     * @param persist
+     * @param callback
+     * @throws IOException
+     */
+    public static void fromStream(InputStream input, SLFeatureProfile profile, boolean persist, SLNodeListener callback)
+            throws IOException {
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        int read;
+        while ((read = input.read(buffer)) != -1)
+            output.write(buffer, 0, read);
+
+        fromBytes(output.toByteArray(), profile, persist, callback);
+    }
+
+    /**
+     * PCM 데이터로부터 특성행렬을 추출하여 노드를 생성한다.
+     *
+     * @param uid
+     * @param info
+     * @param pcmData
+     * @param stage     음성이 처리된 단계
+     * @param persist   일반화된 음성을 저장할지 여부 (원본 음성일 때만 의미가 있다)
+     * @param source    처리된 음성 파일 (원본 음성이 아닐 때만 사용된다)
+     * @param profile
+     * @param callback
+     */
+    private static void fromPcmData(final int uid, final SLNodeInfo info, SLPcmData pcmData, SLFeatureExtractor.Stage stage,
+                                    boolean persist, File source, SLFeatureProfile profile, SLNodeListener callback) {
+
+        final boolean cacheable = stage != SLFeatureExtractor.Stage.RAW;
+
+        SLFeatureExtractor featureExtractor = new SLFeatureExtractor(profile);
         featureExtractor.addEventListener((List<float[]> featureMatrix) -> {
             SLNode node = new SLNode(uid, info, featureMatrix);
+
+            // 처리된 파일에서 추출한 특성행렬만 다음 로드 때 재사용할 수 있다.
+            if (cacheable)
+                SLFeatureCache.write(source, profile.getSignature(), node.frameBuffer);
+
             callback.onNodeReady(node);
         });
 
-        if (processed)
-            featureExtractor.process(pcmData);
-        else {
-            // 전처리된 발음이 저장될 장소
-            String path = "./data/" + uid + ".spd";
-            featureExtractor.process(pcmData, path);
-            info.source = new File("./data/" + uid + ".spd");
+        switch (stage) {
+            case PREPROCESSED:
+                featureExtractor.process(pcmData);
+                break;
+            case NORMALIZED:
+                featureExtractor.processNormalized(pcmData);
+                break;
+            default:
+                if (persist) {
+                    // 일반화된 발음이 저장될 장소
+                    String path = "./data/" + uid + ".sns";
+                    info.source = new File(path);
+                    featureExtractor.process(pcmData, path);
+                } else
+                    featureExtractor.process(pcmData, null);
+                break;
         }
     }
 
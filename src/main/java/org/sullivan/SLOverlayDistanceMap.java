@@ -0,0 +1,99 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+/**
+ * 기존 거리 맵 위에 임시 원소를 얹는 거리 맵
+ * <p>
+ * 두 원소가 모두 기존 맵에 있다면 기존 맵의 캐시를 읽고,
+ * 그 외의 쌍(임시 원소가 포함된 쌍)은 이 맵에만 캐시한다. 기존 맵은 바뀌지 않는다.
+ * 임시 원소와 비교되는 원소는 일부뿐이므로 성긴 테이블을 사용한다.
+ */
+public class SLOverlayDistanceMap<T extends SLMeasurable<T>> extends SLDistanceMap<T> {
+
+    /**
+     * 기존 거리 맵
+     */
+    private SLDistanceMap<T> base;
+
+    public SLOverlayDistanceMap(SLDistanceMap<T> base, SLMetric<T> metric) {
+        super(metric, Storage.STRIPED);
+        this.base = base;
+    }
+
+    @Override
+    public double getDistance(T element1, T element2, double cutoff) {
+
+        if (base.hasElement(element1) && base.hasElement(element2))
+            return base.getDistance(element1, element2, cutoff);
+
+        // 임시 원소와 비교되는 기존 원소도 이 맵에 등록해야 거리가 캐시된다.
+        attach(element1);
+        attach(element2);
+
+        return super.getDistance(element1, element2, cutoff);
+    }
+
+    @Override
+    public double getCachedDistance(T element1, T element2) {
+
+        if (base.hasElement(element1) && base.hasElement(element2))
+            return base.getCachedDistance(element1, element2);
+
+        return super.getCachedDistance(element1, element2);
+    }
+
+    @Override
+    public double getLowerBound(T element1, T element2) {
+
+        if (base.hasElement(element1) && base.hasElement(element2))
+            return base.getLowerBound(element1, element2);
+
+        return super.getLowerBound(element1, element2);
+    }
+
+    /**
+     * 임시 원소를 기존 맵에 추가하고, 이 맵에 캐시된 거리를 기존 맵으로 옮긴다.
+     * 기존 맵을 바꾸므로 모델 변경 작업 안에서만 호출해야 한다.
+     *
+     * @param element
+     */
+    public void commit(T element) {
+
+        if (!base.hasElement(element))
+            base.add(element);
+
+        for (T other : getList()) {
+
+            if (other.equals(element) || !base.hasElement(other)) continue;
+
+            double distance = super.getCachedDistance(element, other);
+            if (!Double.isNaN(distance))
+                base.putDistance(element, other, distance);
+        }
+    }
+
+    /**
+     * 원소가 이 맵에 없다면 추가한다. 이미 있는 원소는 캐시를 유지한다.
+     *
+     * @param element
+     */
+    private synchronized void attach(T element) {
+        if (element != null && !hasElement(element))
+            add(element);
+    }
+}
@@ -26,6 +26,9 @@ import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,6 +37,26 @@ import java.util.List;
  */
 public class SLPcmData {
 
+    /**
+     * 헤더 없는 PCM 바이트의 샘플 레이트
+     */
+    public static int RAW_SAMPLE_RATE = 44100;
+
+    /**
+     * RIFF 청크 식별자 (little-endian int)
+     */
+    private static final int RIFF = 0x46464952; // "RIFF"
+    private static final int WAVE = 0x45564157; // "WAVE"
+    private static final int FMT = 0x20746d66; // "fmt "
+    private static final int DATA = 0x61746164; // "data"
+
+    /**
+     * fmt 청크의 포맷 코드
+     */
+    private static final int FORMAT_PCM = 1;
+    private static final int FORMAT_IEEE_FLOAT = 3;
+    private static final int FORMAT_EXTENSIBLE = 0xfffe;
+
     /**
      * 음성 정보 데이터
      */
@@ -133,42 +156,281 @@ public class SLPcmData {
 
     /**
      * 음성 데이터(Wave)를 PCM데이터로 변환한다.
+     * <p>
+     * 파일을 메모리에 매핑한 후 샘플을 곧바로 float로 변환한다. 다채널 음성은 채널 평균으로 합친다.
+     * 직접 해석할 수 없는 포맷(압축, big-endian 등)은 javax.sound로 읽는다.
      *
      * @param source
-     * @return
+     * @return 변환할 수 없다면 null
      */
     public static SLPcmData importWav(File source) {
 
-        AudioFormat format = null;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(source, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
 
-        TarsosDSPAudioFloatConverter converter = null;
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            SLPcmData pcmData = decodeWav(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            if (pcmData != null)
+                return pcmData;
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
 
         try {
-            AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(source);
-            converter = TarsosDSPAudioFloatConverter.getConverter(JVMAudioInputStream.toTarsosDSPFormat(audioInputStream.getFormat()));
+            return importWav(AudioSystem.getAudioInputStream(source));
+        } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 메모리 상의 음성 데이터를 PCM데이터로 변환한다.
+     * RIFF/WAVE 헤더가 있다면 Wave로, 없다면 RAW_SAMPLE_RATE의 16bit signed little-endian mono PCM으로 읽는다.
+     *
+     * @param audio
+     * @return 변환할 수 없다면 null
+     */
+    public static SLPcmData fromBytes(byte[] audio) {
+
+        if (isWave(audio)) {
+
+            SLPcmData pcmData = decodeWav(ByteBuffer.wrap(audio));
+            if (pcmData != null)
+                return pcmData;
+
+            try {
+                return importWav(AudioSystem.getAudioInputStream(new ByteArrayInputStream(audio)));
+            } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
 
-            format = audioInputStream.getFormat();
+        ByteBuffer buffer = ByteBuffer.wrap(audio).order(ByteOrder.LITTLE_ENDIAN);
 
+        return new SLPcmData(decodeSamples(buffer, 0, audio.length / 2, 1, 2, false), RAW_SAMPLE_RATE);
+    }
+
+    /**
+     * 버퍼의 남은 부분을 PCM데이터로 변환한다. 버퍼의 위치는 바뀌지 않는다.
+     *
+     * @param audio
+     * @return
+     */
+    public static SLPcmData fromBuffer(ByteBuffer audio) {
+
+        byte[] bytes = new byte[audio.remaining()];
+        audio.duplicate().get(bytes);
+
+        return fromBytes(bytes);
+    }
+
+    /**
+     * 스트림의 끝까지 읽어 PCM데이터로 변환한다.
+     *
+     * @param input
+     * @return
+     * @throws IOException
+     */
+    public static SLPcmData fromStream(InputStream input) throws IOException {
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        int read;
+        while ((read = input.read(buffer)) != -1)
+            output.write(buffer, 0, read);
+
+        return fromBytes(output.toByteArray());
+    }
+
+    /**
+     * RIFF/WAVE 헤더로 시작하는지 확인한다.
+     *
+     * @param audio
+     * @return
+     */
+    private static boolean isWave(byte[] audio) {
+        return audio.length >= 12
+                && audio[0] == 'R' && audio[1] == 'I' && audio[2] == 'F' && audio[3] == 'F'
+                && audio[8] == 'W' && audio[9] == 'A' && audio[10] == 'V' && audio[11] == 'E';
+    }
+
+    /**
+     * RIFF/WAVE 데이터를 직접 해석한다.
+     * 8/16/24/32bit 정수 PCM과 32/64bit float를 지원하며, 그 외의 포맷이거나 헤더가 잘못되었다면 null을 리턴한다.
+     *
+     * @param buffer
+     * @return
+     */
+    private static SLPcmData decodeWav(ByteBuffer buffer) {
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.limit() < 12 || buffer.getInt(0) != RIFF || buffer.getInt(8) != WAVE)
+            return null;
+
+        int format = -1;
+        int channels = 0;
+        int sampleRate = 0;
+        int bitsPerSample = 0;
+
+        int dataOffset = -1;
+        int dataSize = 0;
+
+        // 청크 단위로 읽는다.
+        int position = 12;
+        while (position + 8 <= buffer.limit()) {
+
+            int id = buffer.getInt(position);
+            long size = buffer.getInt(position + 4) & 0xffffffffL;
+            int offset = position + 8;
+
+            if (id == FMT && size >= 16 && offset + 16 <= buffer.limit()) {
+
+                format = buffer.getShort(offset) & 0xffff;
+                channels = buffer.getShort(offset + 2) & 0xffff;
+                sampleRate = buffer.getInt(offset + 4);
+                bitsPerSample = buffer.getShort(offset + 14) & 0xffff;
+
+                // WAVE_FORMAT_EXTENSIBLE: 실제 포맷은 sub format GUID의 앞 두 바이트이다.
+                if (format == FORMAT_EXTENSIBLE && size >= 40 && offset + 26 <= buffer.limit())
+                    format = buffer.getShort(offset + 24) & 0xffff;
+
+            } else if (id == DATA) {
+
+                // 스트리밍으로 기록된 파일은 크기가 비어 있거나 실제보다 클 수 있다.
+                dataOffset = offset;
+                dataSize = (int) Math.min(size == 0 ? Long.MAX_VALUE : size, buffer.limit() - offset);
+                break;
+            }
+
+            position = (int) Math.min(offset + size + (size & 1), Integer.MAX_VALUE);
+        }
+
+        if (dataOffset < 0 || channels < 1 || sampleRate < 1)
+            return null;
+
+        boolean floating;
+
+        if (format == FORMAT_PCM && (bitsPerSample == 8 || bitsPerSample == 16 || bitsPerSample == 24 || bitsPerSample == 32))
+            floating = false;
+        else if (format == FORMAT_IEEE_FLOAT && (bitsPerSample == 32 || bitsPerSample == 64))
+            floating = true;
+        else
+            return null;
+
+        int bytesPerSample = bitsPerSample / 8;
+        int frames = dataSize / (bytesPerSample * channels);
+
+        return new SLPcmData(decodeSamples(buffer, dataOffset, frames, channels, bytesPerSample, floating), sampleRate);
+    }
+
+    /**
+     * little-endian 샘플들을 [-1, 1] 범위의 mono float 배열로 변환한다.
+     *
+     * @param buffer
+     * @param offset
+     * @param frames
+     * @param channels
+     * @param bytesPerSample
+     * @param floating
+     * @return
+     */
+    private static float[] decodeSamples(ByteBuffer buffer, int offset, int frames, int channels, int bytesPerSample, boolean floating) {
+
+        float[] samples = new float[frames];
+
+        int frameSize = channels * bytesPerSample;
+        float channelScale = 1f / channels;
+
+        for (int i = 0, position = offset; i < frames; i++, position += frameSize) {
+
+            float sum = 0;
+
+            for (int c = 0, p = position; c < channels; c++, p += bytesPerSample)
+                sum += decodeSample(buffer, p, bytesPerSample, floating);
+
+            samples[i] = channels == 1 ? sum : sum * channelScale;
+        }
+
+        return samples;
+    }
+
+    private static float decodeSample(ByteBuffer buffer, int position, int bytesPerSample, boolean floating) {
+
+        if (floating)
+            return bytesPerSample == 4 ? buffer.getFloat(position) : (float) buffer.getDouble(position);
+
+        switch (bytesPerSample) {
+            case 1: // 8bit PCM은 unsigned이다.
+                return ((buffer.get(position) & 0xff) - 128) * (1f / 127f);
+            case 2:
+                return buffer.getShort(position) * (1f / 32767f);
+            case 3:
+                return ((buffer.get(position) & 0xff) | ((buffer.get(position + 1) & 0xff) << 8)
+                        | (buffer.get(position + 2) << 16)) * (1f / 8388607f);
+            default:
+                return buffer.getInt(position) * (1f / 2147483647f);
+        }
+    }
+
+    /**
+     * 오디오 스트림을 PCM데이터로 변환한다. 직접 해석할 수 없는 포맷에만 사용된다.
+     *
+     * @param audioInputStream
+     * @return
+     */
+    private static SLPcmData importWav(AudioInputStream audioInputStream) {
+
+        AudioFormat format = audioInputStream.getFormat();
+
+        // 압축된 포맷(mu-law 등)은 16bit PCM으로 디코딩한다.
+        if (!format.getEncoding().equals(AudioFormat.Encoding.PCM_SIGNED)
+                && !format.getEncoding().equals(AudioFormat.Encoding.PCM_UNSIGNED)
+                && !format.getEncoding().equals(AudioFormat.Encoding.PCM_FLOAT)) {
+
+            format = new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false);
+            audioInputStream = AudioSystem.getAudioInputStream(format, audioInputStream);
+        }
+
+        TarsosDSPAudioFloatConverter converter = TarsosDSPAudioFloatConverter.getConverter(JVMAudioInputStream.toTarsosDSPFormat(format));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try {
             int read;
-            byte[] buffer = new byte[1024 * 1024];
+            byte[] buffer = new byte[64 * 1024];
             while ((read = audioInputStream.read(buffer)) > 0) {
                 outputStream.write(buffer, 0, read);
             }
-            outputStream.flush();
 
-        } catch (UnsupportedAudioFileException | IOException e) {
+        } catch (IOException e) {
             e.printStackTrace();
+            return null;
         }
 
         byte[] audioBytes = outputStream.toByteArray();
-        byte[] audioBytesPadded = new byte[audioBytes.length * 4];
 
-        System.arraycopy(audioBytes, 0, audioBytesPadded, 0, audioBytes.length);
+        int channels = Math.max(format.getChannels(), 1);
+        int frames = audioBytes.length / format.getFrameSize();
 
-        float[] audioFloats = new float[audioBytes.length];
+        float[] interleaved = new float[frames * channels];
+        converter.toFloatArray(audioBytes, 0, interleaved, 0, interleaved.length);
 
-        converter.toFloatArray(audioBytesPadded, 0, audioFloats, 0, audioFloats.length - 1);
+        float[] audioFloats = interleaved;
+
+        // 채널 평균으로 합친다.
+        if (channels > 1) {
+            audioFloats = new float[frames];
+            for (int i = 0; i < frames; i++) {
+                float sum = 0;
+                for (int c = 0; c < channels; c++)
+                    sum += interleaved[i * channels + c];
+                audioFloats[i] = sum / channels;
+            }
+        }
 
         SLPcmData pcmData = new SLPcmData(audioFloats, (int) format.getSampleRate());
         pcmData.isBigEndian = format.isBigEndian();
@@ -73,7 +73,7 @@ public class SLPlayer implements AudioProcessor {
         SLPcmData pcmData = null;
 
         // 오디오 데이터를 PCM 형식으로 변환한다.
-        if (extension.equals("spd")) {
+        if (extension.equals("spd") || extension.equals("sns")) {
             pcmData = SLPcmData.importWav(audioFile);
         } else if (extension.equals("wav")) {
             pcmData = SLPcmData.importWav(audioFile);
@@ -0,0 +1,26 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+/**
+ * 거리 일괄 계산의 진행 상황을 받는 리스너.
+ * 여러 작업 스레드에서 호출될 수 있다.
+ */
+public interface SLPrecomputeListener {
+
+    void onPrecomputeProgress(long computedPairs, long totalPairs);
+}
@@ -0,0 +1,248 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+
+package org.sullivan;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 특징 추출 프로필별 비용과 정확도를 비교한다.
+ * <p>
+ * 워드의 노드들을 각 프로필로 다시 추출한 후 노드당 프레임 수, 추출 시간(리샘플링 포함), DTW 한 번의 시간,
+ * 그리고 leave-one-out 최근접 이웃 분류의 정확도(모델, 성공 레이어는 성공 / 실패 레이어는 실패)를 측정한다.
+ * 모든 측정은 한 스레드에서 이루어지며, 디스크에 캐시된 특징행렬은 읽거나 쓰지 않는다.
+ */
+public class SLProfileBenchmark {
+
+    /**
+     * 측정에 사용할 최대 노드 수. 이보다 많으면 고르게 골라낸다.
+     */
+    public static int MAXIMUM_NODES = 200;
+
+    /**
+     * 음성 파일과 정답
+     */
+    private List<File> sources;
+    private List<Boolean> failures;
+
+    /**
+     * 디코딩된 음성
+     */
+    private List<SLPcmData> pcmData;
+
+    private SLWarpingWindow warpingWindow;
+
+    /**
+     * 워드의 노드들로 측정을 준비한다.
+     *
+     * @param word
+     */
+    public SLProfileBenchmark(SLWord word) {
+
+        sources = new ArrayList<>();
+        failures = new ArrayList<>();
+        pcmData = new ArrayList<>();
+
+        List<SLNode> nodes = new ArrayList<>();
+        List<Boolean> labels = new ArrayList<>();
+
+        word.read(() -> {
+            nodes.addAll(word.layer.model.nodes);
+            nodes.addAll(word.layer.success.nodes);
+            int failureStart = nodes.size();
+            nodes.addAll(word.layer.failure.nodes);
+
+            for (int i = 0; i < nodes.size(); i++)
+                labels.add(i >= failureStart);
+
+            warpingWindow = word.warpingWindow;
+            return null;
+        });
+
+        // 여러 레이어에 속한 노드는 처음 나온 레이어의 것으로 한 번만 센다.
+        Set<Integer> uids = new HashSet<>();
+        List<Integer> candidates = new ArrayList<>();
+
+        for (int i = 0; i < nodes.size(); i++) {
+            File source = nodes.get(i).info.source;
+            if (source != null && source.exists() && uids.add(nodes.get(i).uid))
+                candidates.add(i);
+        }
+
+        // 레이어 비율을 유지하도록 일정한 간격으로 고른다.
+        int count = Math.min(candidates.size(), MAXIMUM_NODES);
+
+        for (int k = 0; k < count; k++) {
+
+            int index = candidates.get((int) ((long) k * candidates.size() / count));
+            File source = nodes.get(index).info.source;
+
+            SLPcmData decoded = SLPcmData.importWav(source);
+            if (decoded == null) continue;
+
+            sources.add(source);
+            failures.add(labels.get(index));
+            pcmData.add(decoded);
+        }
+    }
+
+    /**
+     * 측정에 사용되는 노드 수
+     *
+     * @return
+     */
+    public int size() {
+        return sources.size();
+    }
+
+    /**
+     * 프로필들을 측정하고 결과를 표로 만든다.
+     *
+     * @param profiles
+     * @return
+     */
+    public String run(List<SLFeatureProfile> profiles) {
+
+        String report = String.format("%-10s %8s %8s %8s %6s %6s %12s %14s %12s %10s%n",
+                "profile", "rate", "window", "hop", "fft", "coef", "frames/node", "extract(ms)", "dtw(us)", "accuracy");
+
+        for (SLFeatureProfile profile : profiles) {
+            Result result = measure(profile);
+            report += String.format("%-10s %8s %8d %8d %6d %6d %12.1f %14.2f %12.1f %10s%n",
+                    profile.name, profile.sampleRate > 0 ? String.valueOf(profile.sampleRate) : "native", profile.windowSize, profile.hopSize, profile.fftSize, profile.coefficientNumber,
+                    result.framesPerNode, result.extractionMillis, result.dtwMicros,
+                    Double.isNaN(result.accuracy) ? "n/a" : String.format("%.1f%%", result.accuracy * 100));
+        }
+
+        report += size() + " nodes, " + (size() * (size() - 1) / 2) + " pairs per profile, warping window: "
+                + warpingWindow + " (extraction time per node, DTW time per pair)";
+
+        return report;
+    }
+
+    /**
+     * 프로필 하나를 측정한다.
+     *
+     * @param profile
+     * @return
+     */
+    private Result measure(SLFeatureProfile profile) {
+
+        Result result = new Result();
+        int n = size();
+
+        // 특징 추출
+        SLFrameMatrix[] matrices = new SLFrameMatrix[n];
+        long extractionTime = 0;
+        long frames = 0;
+
+        for (int i = 0; i < n; i++) {
+
+            final int index = i;
+            SLPcmData original = pcmData.get(i);
+
+            // 전처리는 음성을 변경하므로 복사본을 사용한다.
+            SLPcmData copy = new SLPcmData(original.data.clone(), original.sampleRate);
+            copy.isBigEndian = original.isBigEndian;
+
+            SLFeatureExtractor featureExtractor = new SLFeatureExtractor(profile);
+            featureExtractor.addEventListener((List<float[]> featureMatrix) ->
+                    matrices[index] = SLFrameMatrix.fromList(featureMatrix));
+
+            long startTime = System.nanoTime();
+
+            String name = sources.get(i).getName().toLowerCase();
+
+            if (name.endsWith(".spd"))
+                featureExtractor.process(copy);
+            else if (name.endsWith(".sns"))
+                featureExtractor.processNormalized(copy);
+            else
+                featureExtractor.process(copy, null);
+
+            extractionTime += System.nanoTime() - startTime;
+            frames += matrices[i].frames;
+        }
+
+        // 모든 쌍의 거리
+        double[][] distances = new double[n][n];
+        long dtwTime = 0;
+
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                long startTime = System.nanoTime();
+                distances[i][j] = distances[j][i] = SLDtw.getDistance(matrices[i], matrices[j], warpingWindow);
+                dtwTime += System.nanoTime() - startTime;
+            }
+        }
+
+        // leave-one-out 최근접 이웃 분류
+        int correct = 0;
+        boolean bothClasses = failures.contains(true) && failures.contains(false);
+
+        for (int i = 0; i < n; i++) {
+
+            int nearest = -1;
+            for (int j = 0; j < n; j++) {
+                if (j != i && (nearest < 0 || distances[i][j] < distances[i][nearest]))
+                    nearest = j;
+            }
+
+            if (nearest >= 0 && failures.get(nearest).equals(failures.get(i)))
+                correct++;
+        }
+
+        long pairs = (long) n * (n - 1) / 2;
+
+        result.framesPerNode = n > 0 ? (double) frames / n : 0;
+        result.extractionMillis = n > 0 ? extractionTime / 1e6 / n : 0;
+        result.dtwMicros = pairs > 0 ? dtwTime / 1e3 / pairs : 0;
+        result.accuracy = bothClasses && n > 1 ? (double) correct / n : Double.NaN;
+
+        return result;
+    }
+
+    /**
+     * 프로필 하나의 측정 결과
+     */
+    private static class Result {
+
+        /**
+         * 노드당 평균 프레임 수
+         */
+        double framesPerNode;
+
+        /**
+         * 노드당 평균 추출 시간
+         */
+        double extractionMillis;
+
+        /**
+         * 쌍당 평균 DTW 시간
+         */
+        double dtwMicros;
+
+        /**
+         * 최근접 이웃 분류 정확도 (한 쪽 레이어가 비어 있으면 NaN)
+         */
+        double accuracy;
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+
+package org.sullivan;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 음성 데이터를 다른 샘플 레이트로 변환하는 polyphase 리샘플러
+ * <p>
+ * 변환 비율을 기약분수 L/M으로 나타내고, Kaiser window를 적용한 windowed-sinc 저역 통과 필터를
+ * L개의 위상으로 나누어 둔다. 출력 샘플 하나는 해당 위상의 계수와 입력 샘플 몇십 개의 내적이므로,
+ * 0을 끼워 넣고 걸러낸 후 솎아내는 방식과 결과는 같지만 계산량은 출력 샘플 수에만 비례한다.
+ * 필터는 변환 비율별로 한 번만 만들어 재사용한다.
+ */
+public class SLResampler {
+
+    /**
+     * 필터 한쪽에 포함되는 sinc의 영점 수. 클수록 전이 대역이 좁아진다.
+     */
+    public static int ZERO_CROSSINGS = 8;
+
+    /**
+     * 통과 대역의 끝 (낮은 쪽 나이퀴스트 주파수에 대한 비율)
+     */
+    public static double ROLLOFF = 0.95;
+
+    /**
+     * Kaiser window의 beta (약 80dB의 저지 대역 감쇠)
+     */
+    public static double KAISER_BETA = 8.0;
+
+    /**
+     * 위상 수의 상한. L이 이보다 크면 가장 가까운 위상으로 근사한다.
+     */
+    public static int MAXIMUM_PHASES = 4096;
+
+    /**
+     * 변환 비율 (L, M) -> 필터
+     */
+    private static final Map<Long, Filter> filters = new ConcurrentHashMap<>();
+
+    /**
+     * 음성 데이터를 주어진 샘플 레이트로 변환한다. 이미 같은 레이트이거나 sampleRate가 0 이하라면 그대로 둔다.
+     *
+     * @param pcmData
+     * @param sampleRate
+     */
+    public static void resample(SLPcmData pcmData, int sampleRate) {
+
+        if (sampleRate <= 0 || pcmData.sampleRate == sampleRate || pcmData.sampleRate <= 0)
+            return;
+
+        pcmData.data = resample(pcmData.data, pcmData.sampleRate, sampleRate);
+        pcmData.sampleRate = sampleRate;
+        pcmData.duration = (float) pcmData.data.length / sampleRate;
+    }
+
+    /**
+     * 샘플 배열을 다른 샘플 레이트로 변환한다.
+     *
+     * @param input
+     * @param sourceRate
+     * @param targetRate
+     * @return
+     */
+    public static float[] resample(float[] input, int sourceRate, int targetRate) {
+
+        int divisor = gcd(sourceRate, targetRate);
+        int up = targetRate / divisor;
+        int down = sourceRate / divisor;
+
+        Filter filter = filters.computeIfAbsent(((long) up << 32) | down, (Long key) -> new Filter(up, down));
+
+        int length = (int) (((long) input.length * up + down - 1) / down);
+        float[] output = new float[length];
+
+        float[][] coefficients = filter.coefficients;
+        int taps = filter.taps;
+        int phases = coefficients.length;
+
+        // 입력 시간 = (출력 번호 * M) / L 입력 샘플
+        for (int m = 0; m < length; m++) {
+
+            long time = (long) m * down;
+            int base = (int) (time / up);
+            int phase = (int) ((time % up) * phases / up);
+
+            float[] kernel = coefficients[phase];
+            int start = base - taps / 2 + 1;
+
+            float sum = 0;
+
+            if (start >= 0 && start + taps <= input.length) {
+
+                // 덧셈 간 의존성을 줄이기 위해 네 개의 합으로 나누어 누적한다.
+                float sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+
+                for (int j = 0; j < taps; j += 4) {
+                    sum0 += kernel[j] * input[start + j];
+                    sum1 += kernel[j + 1] * input[start + j + 1];
+                    sum2 += kernel[j + 2] * input[start + j + 2];
+                    sum3 += kernel[j + 3] * input[start + j + 3];
+                }
+
+                sum = (sum0 + sum1) + (sum2 + sum3);
+            } else {
+                // 양 끝은 0으로 채워진 것으로 본다.
+                for (int j = Math.max(0, -start); j < taps && start + j < input.length; j++)
+                    sum += kernel[j] * input[start + j];
+            }
+
+            output[m] = sum;
+        }
+
+        return output;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * 위상별로 나누어진 저역 통과 필터
+     */
+    private static class Filter {
+
+        /**
+         * 위상별 계수. coefficients[p][j]는 출력 시각이 base + p / phases일 때
+         * 입력 샘플 base - taps / 2 + 1 + j에 곱해진다.
+         */
+        final float[][] coefficients;
+
+        /**
+         * 위상 하나의 계수 수 (4의 배수)
+         */
+        final int taps;
+
+        Filter(int up, int down) {
+
+            int phases = Math.min(up, MAXIMUM_PHASES);
+
+            // 차단 주파수 (입력 샘플당 cycle)
+            double cutoff = 0.5 * ROLLOFF * Math.min(1.0, (double) up / down);
+            double halfWidth = ZERO_CROSSINGS / (2 * cutoff);
+
+            taps = 4 * (int) Math.ceil(halfWidth / 2);
+            coefficients = new float[phases][taps];
+
+            double normalizer = bessel(KAISER_BETA);
+
+            for (int p = 0; p < phases; p++) {
+
+                double sum = 0;
+
+                for (int j = 0; j < taps; j++) {
+
+                    // 출력 시각으로부터 입력 샘플까지의 거리
+                    double x = j - taps / 2 + 1 - (double) p / phases;
+
+                    double value = 0;
+                    if (Math.abs(x) < halfWidth) {
+                        double ratio = x / halfWidth;
+                        value = 2 * cutoff * sinc(2 * cutoff * x) * bessel(KAISER_BETA * Math.sqrt(1 - ratio * ratio)) / normalizer;
+                    }
+
+                    coefficients[p][j] = (float) value;
+                    sum += value;
+                }
+
+                // 위상마다 직류 이득을 1로 맞춘다.
+                for (int j = 0; j < taps; j++)
+                    coefficients[p][j] = (float) (coefficients[p][j] / sum);
+            }
+        }
+
+        private static double sinc(double x) {
+            return x == 0 ? 1 : Math.sin(Math.PI * x) / (Math.PI * x);
+        }
+
+        /**
+         * 0차 제1종 변형 베셀 함수
+         *
+         * @param x
+         * @return
+         */
+        private static double bessel(double x) {
+
+            double sum = 1;
+            double term = 1;
+
+            for (int k = 1; k < 50; k++) {
+                term *= (x / (2 * k)) * (x / (2 * k));
+                sum += term;
+                if (term < sum * 1e-12) break;
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+/**
+ * 프레임 간 거리를 계수의 차이로부터 double 정밀도로 계산하는 기본 커널
+ * Vector API를 사용할 수 없는 환경에서 사용되며, 결과는 이전의 거리 계산과 비트 단위로 같다.
+ */
+public class SLScalarFrameKernel implements SLFrameKernel {
+
+    @Override
+    public String getId() {
+        return "scalar";
+    }
+
+    @Override
+    public void getDistances(SLFrameMatrix n, int frame, SLFrameMatrix m, int from, int to, double[] costs) {
+
+        float[] a = n.data;
+        float[] b = m.data;
+        int dimension = n.dimension;
+        int aOffset = frame * dimension;
+
+        for (int j = from; j < to; j++)
+            costs[j] = SLDtw.getLocalDistance(a, aOffset, b, j * dimension, dimension);
+    }
+}
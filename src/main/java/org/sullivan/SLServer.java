@@ -0,0 +1,393 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로컬 HTTP 평가 서버
+ * <p>
+ * POST /words/{name}/score     WAV(또는 RAW PCM) 바이트를 모델을 바꾸지 않고 채점한다.
+ * POST /words/{name}/evaluate  WAV(또는 RAW PCM) 바이트를 평가하고 모델에 반영한다.
+ * GET  /words/{name}/status    워드 상태
+ * GET  /words                  로드된 워드 목록
+ * <p>
+ * 요청은 가능하다면 가상 스레드에서, 아니라면 크기가 제한된 스레드 풀에서 처리되며,
+ * 워드마다 동시에 처리되는 평가의 수를 제한한다. 스레드 풀과 대기열이 모두 차면 503을 응답한다.
+ */
+public class SLServer {
+
+    /**
+     * 워드 하나에서 동시에 처리되는 평가의 최대 수
+     */
+    public static int WORD_CONCURRENCY = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 평가 차례를 기다리는 최대 시간 (ms). 넘으면 503을 응답한다.
+     */
+    public static long ACQUIRE_TIMEOUT = 30000;
+
+    /**
+     * 업로드할 수 있는 음성의 최대 크기 (byte)
+     */
+    public static int MAXIMUM_UPLOAD_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * 가상 스레드가 없을 때 요청을 처리하는 스레드의 최대 수
+     */
+    public static int MAXIMUM_THREADS = 4 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 가상 스레드가 없을 때 처리를 기다릴 수 있는 요청의 최대 수
+     */
+    public static int MAXIMUM_QUEUED_REQUESTS = 256;
+
+    /**
+     * 서버를 종료할 때 처리 중인 요청을 기다리는 최대 시간 (ms)
+     */
+    public static long STOP_TIMEOUT = 10000;
+
+    private Map<String, SLWord> words;
+
+    /**
+     * 워드별 동시 평가 제한
+     */
+    private Map<String, Semaphore> limits;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public SLServer(Map<String, SLWord> words) {
+        this.words = words;
+        this.limits = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 서버를 시작한다.
+     *
+     * @param port
+     * @throws IOException
+     */
+    public synchronized void start(int port) throws IOException {
+
+        if (server != null)
+            throw new IllegalStateException("Server is already running.");
+
+        executor = createExecutor();
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/words", this::dispatch);
+        server.start();
+    }
+
+    /**
+     * 서버를 종료한다.
+     */
+    public synchronized void stop() {
+
+        if (server == null) return;
+
+        server.stop(0);
+        executor.shutdown();
+
+        // 처리 중인 평가가 모델 업데이터에 작업을 넘길 때까지 기다린다.
+        try {
+            if (!executor.awaitTermination(STOP_TIMEOUT, TimeUnit.MILLISECONDS))
+                System.out.println("Warning: Server stopped with requests still in progress.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        server = null;
+        executor = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * 실제로 연결을 받고 있는 포트
+     *
+     * @return
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    /**
+     * 가상 스레드 executor를 만든다. 지원하지 않는 JVM에서는 크기와 대기열이 제한된 스레드 풀을 사용한다.
+     *
+     * @return
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(MAXIMUM_THREADS, MAXIMUM_THREADS,
+                    60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAXIMUM_QUEUED_REQUESTS), (Runnable runnable) -> {
+                Thread thread = new Thread(runnable, "sullivan-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    /**
+     * HTTP 서버의 연결 스레드에서 호출되며, 요청을 executor에 넘긴다.
+     * executor가 요청을 받을 수 없다면 바로 503을 응답한다.
+     *
+     * @param exchange
+     * @throws IOException
+     */
+    private void dispatch(HttpExchange exchange) throws IOException {
+
+        ExecutorService executor;
+
+        synchronized (this) {
+            executor = this.executor;
+        }
+
+        try {
+            if (executor == null)
+                throw new RejectedExecutionException();
+
+            executor.execute(() -> {
+                try {
+                    handle(exchange);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+
+        } catch (RejectedExecutionException e) {
+            try {
+                respondError(exchange, 503, "Server is busy.");
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * 요청을 경로에 따라 처리한다.
+     *
+     * @param exchange
+     * @throws IOException
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+
+        try {
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+            String method = exchange.getRequestMethod();
+
+            // GET /words
+            if (path.length == 1) {
+                if (!method.equals("GET"))
+                    respondError(exchange, 405, "Method not allowed.");
+                else
+                    respond(exchange, 200, getWordList());
+                return;
+            }
+
+            if (path.length != 3) {
+                respondError(exchange, 404, "Not found.");
+                return;
+            }
+
+            SLWord word = words.get(path[1]);
+            if (word == null) {
+                respondError(exchange, 404, "No such word '" + path[1] + "'.");
+                return;
+            }
+
+            switch (path[2]) {
+                case "score":
+                case "evaluate":
+                    if (!method.equals("POST"))
+                        respondError(exchange, 405, "Method not allowed.");
+                    else
+                        handleEvaluation(exchange, word, path[2].equals("evaluate"));
+                    break;
+                case "status":
+                    if (!method.equals("GET"))
+                        respondError(exchange, 405, "Method not allowed.");
+                    else
+                        respond(exchange, 200, "{\"status\": " + SLEvaluationReport.quote(word.getStatus()) + "}");
+                    break;
+                default:
+                    respondError(exchange, 404, "Not found.");
+            }
+
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            respondError(exchange, 500, "Internal error.");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 업로드된 WAV를 평가한다.
+     *
+     * @param exchange
+     * @param word
+     * @param learn    모델에 반영할지 여부
+     * @throws IOException
+     */
+    private void handleEvaluation(HttpExchange exchange, SLWord word, boolean learn) throws IOException {
+
+        byte[] body = readBody(exchange.getRequestBody());
+
+        if (body == null) {
+            respondError(exchange, 413, "Upload is larger than " + MAXIMUM_UPLOAD_SIZE + " bytes.");
+            return;
+        }
+
+        if (body.length == 0) {
+            respondError(exchange, 400, "Empty upload.");
+            return;
+        }
+
+        Semaphore limit = limits.computeIfAbsent(word.name, (String name) -> new Semaphore(WORD_CONCURRENCY, true));
+
+        boolean acquired;
+        try {
+            acquired = limit.tryAcquire(ACQUIRE_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            respondError(exchange, 503, "Word '" + word.name + "' is busy.");
+            return;
+        }
+
+        String result;
+        try {
+            result = evaluate(word, body, learn);
+        } finally {
+            limit.release();
+        }
+
+        if (result == null)
+            respondError(exchange, 400, "Failed to extract features from upload.");
+        else
+            respond(exchange, 200, result);
+    }
+
+    /**
+     * WAV 또는 RAW PCM 바이트를 노드로 만들어 평가하고 JSON 리포트를 리턴한다.
+     * 모델에 반영되는 음성만 전처리 결과를 디스크에 저장한다.
+     *
+     * @param word
+     * @param audio
+     * @param learn
+     * @return 특징 추출에 실패하면 null
+     */
+    private String evaluate(SLWord word, byte[] audio, boolean learn) {
+
+        SLNode[] result = new SLNode[1];
+        SLNode.fromBytes(audio, word.featureProfile, learn, (SLNode node) -> result[0] = node);
+
+        if (result[0] == null)
+            return null;
+
+        SLEvaluationReport report = learn ? word.evaluate(result[0]) : word.score(result[0]);
+
+        return word.read(report::getResultAsJson);
+    }
+
+    /**
+     * 로드된 워드 목록
+     *
+     * @return
+     */
+    private String getWordList() {
+
+        StringBuilder list = new StringBuilder("{\"words\": [");
+
+        boolean first = true;
+        for (String name : words.keySet()) {
+            if (!first) list.append(", ");
+            list.append(SLEvaluationReport.quote(name));
+            first = false;
+        }
+
+        return list.append("]}").toString();
+    }
+
+    /**
+     * 요청 본문을 읽는다. 최대 크기를 넘으면 null을 리턴한다.
+     *
+     * @param input
+     * @return
+     * @throws IOException
+     */
+    private static byte[] readBody(InputStream input) throws IOException {
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            if (output.size() + read > MAXIMUM_UPLOAD_SIZE)
+                return null;
+            output.write(buffer, 0, read);
+        }
+
+        return output.toByteArray();
+    }
+
+    private static void respondError(HttpExchange exchange, int status, String message) throws IOException {
+        respond(exchange, status, "{\"error\": " + SLEvaluationReport.quote(message) + "}");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+
+        byte[] bytes = (json + "\n").getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
@@ -21,16 +21,26 @@ package org.sullivan;
  */
 public class SLShutdownHook extends Thread {
 
+    private SLMain main;
+
     public SLShutdownHook(SLMain main) {
+        this.main = main;
+    }
+
+    public void run() {
+
+        // 업데이터를 닫기 전에 새 요청을 받지 않도록 서버를 먼저 멈춘다.
+        main.server.stop();
+
+        // 업데이트 큐에 남은 작업을 모두 처리하고 스레드를 종료한다.
+        for (SLWord word : main.words.values()) {
+            word.updater.shutdown();
+            word.updater.flush();
+        }
 
         // 모든 워드를 export한다.
         for (String wordKey : main.words.keySet()) {
             main.wordExporter.export(main.words.get(wordKey));
         }
-
-    }
-
-    public void run() {
-
     }
 }
@@ -0,0 +1,363 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+import java.util.Arrays;
+
+/**
+ * 원소 쌍의 거리를 primitive 형태로 저장하는 lock-striped 해시 테이블
+ * <p>
+ * 두 슬롯 번호로 만든 long 키와 double 값을 open addressing으로 저장하며,
+ * 키는 대칭이므로 한 쌍은 한 번만 저장된다.
+ * 키가 여러 stripe로 분산되므로 서로 다른 쌍에 대한 접근은 거의 경합하지 않는다.
+ * 일부 쌍만 계산되는 성긴 캐시(클러스터 간 거리 등)에 적합하다.
+ * <p>
+ * 슬롯마다 짝이 된 슬롯 번호를 기록해 두므로, 슬롯을 제거할 때는 그 슬롯이 포함된 쌍만 지운다.
+ */
+public class SLStripedDistanceTable implements SLDistanceTable {
+
+    /**
+     * stripe 수 (2의 거듭제곱)
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * 빈 칸을 표시하는 키
+     */
+    private static final long EMPTY = -1L;
+
+    private final Stripe[] stripes;
+
+    /**
+     * 슬롯별 짝 목록. 슬롯 번호의 하위 비트로 나누어 저장한다.
+     */
+    private final Partners[] partners;
+
+    public SLStripedDistanceTable() {
+        stripes = new Stripe[STRIPES];
+        partners = new Partners[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+            partners[i] = new Partners();
+        }
+    }
+
+    @Override
+    public double get(int slot1, int slot2) {
+
+        long key = getKey(slot1, slot2);
+        long hash = mix(key);
+
+        Stripe stripe = stripes[(int) (hash >>> 58)];
+        synchronized (stripe) {
+            return stripe.get(key, (int) hash);
+        }
+    }
+
+    @Override
+    public void put(int slot1, int slot2, double distance) {
+
+        long key = getKey(slot1, slot2);
+        long hash = mix(key);
+
+        Stripe stripe = stripes[(int) (hash >>> 58)];
+        boolean added;
+        synchronized (stripe) {
+            added = stripe.put(key, (int) hash, distance);
+        }
+
+        // 새로 저장된 쌍만 짝 목록에 기록한다.
+        if (added) {
+            addPartner(slot1, slot2);
+            if (slot1 != slot2)
+                addPartner(slot2, slot1);
+        }
+    }
+
+    @Override
+    public void remove(int slot) {
+
+        int[] slotPartners;
+        int count;
+
+        Partners owner = partners[slot & (STRIPES - 1)];
+        synchronized (owner) {
+            slotPartners = owner.get(slot);
+            count = owner.size(slot);
+            owner.clear(slot);
+        }
+
+        for (int i = 0; i < count; i++) {
+
+            int partner = slotPartners[i];
+            long key = getKey(slot, partner);
+            long hash = mix(key);
+
+            Stripe stripe = stripes[(int) (hash >>> 58)];
+            synchronized (stripe) {
+                stripe.remove(key, (int) hash);
+            }
+
+            if (partner == slot) continue;
+
+            Partners partnerOwner = partners[partner & (STRIPES - 1)];
+            synchronized (partnerOwner) {
+                partnerOwner.remove(partner, slot);
+            }
+        }
+    }
+
+    @Override
+    public void ensureCapacity(int slot) {
+    }
+
+    @Override
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+        for (Partners owner : partners) {
+            synchronized (owner) {
+                owner.clearAll();
+            }
+        }
+    }
+
+    private void addPartner(int slot, int partner) {
+        Partners owner = partners[slot & (STRIPES - 1)];
+        synchronized (owner) {
+            owner.add(slot, partner);
+        }
+    }
+
+    /**
+     * 저장된 쌍의 수
+     *
+     * @return
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 순서와 상관없이 같은 키를 만든다.
+     *
+     * @param slot1
+     * @param slot2
+     * @return
+     */
+    static long getKey(int slot1, int slot2) {
+        int low = Math.min(slot1, slot2);
+        int high = Math.max(slot1, slot2);
+        return ((long) low << 32) | (high & 0xffffffffL);
+    }
+
+    /**
+     * 키를 고르게 분산시킨다. (MurmurHash3 finalizer)
+     *
+     * @param key
+     * @return
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * 하나의 stripe. Linear probing 해시 테이블이다.
+     */
+    private static class Stripe {
+
+        private long[] keys;
+        private double[] values;
+        private int size;
+
+        Stripe() {
+            clear();
+        }
+
+        double get(long key, int hash) {
+
+            int mask = keys.length - 1;
+
+            for (int index = hash & mask; ; index = (index + 1) & mask) {
+                if (keys[index] == key)
+                    return values[index];
+                if (keys[index] == EMPTY)
+                    return Double.NaN;
+            }
+        }
+
+        /**
+         * 값을 저장한다. 새로운 키였다면 true를 리턴한다.
+         */
+        boolean put(long key, int hash, double value) {
+
+            // 적재율을 1/2 이하로 유지한다.
+            if ((size + 1) * 2 > keys.length)
+                resize(keys.length * 2);
+
+            int mask = keys.length - 1;
+            int index = hash & mask;
+
+            while (keys[index] != EMPTY && keys[index] != key)
+                index = (index + 1) & mask;
+
+            boolean added = keys[index] == EMPTY;
+
+            if (added)
+                size++;
+
+            keys[index] = key;
+            values[index] = value;
+
+            return added;
+        }
+
+        /**
+         * 키를 지우고, 뒤따르는 probe 구간을 당겨 빈 칸 없이 유지한다.
+         */
+        void remove(long key, int hash) {
+
+            int mask = keys.length - 1;
+            int index = hash & mask;
+
+            while (keys[index] != key) {
+                if (keys[index] == EMPTY)
+                    return;
+                index = (index + 1) & mask;
+            }
+
+            int gap = index;
+
+            for (int i = (gap + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+
+                // 원래 위치에서 i까지의 probe 구간에 빈 칸이 포함된다면 빈 칸으로 옮긴다.
+                int home = (int) mix(keys[i]) & mask;
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    values[gap] = values[i];
+                    gap = i;
+                }
+            }
+
+            keys[gap] = EMPTY;
+            size--;
+        }
+
+        void resize(int capacity) {
+
+            long[] oldKeys = keys;
+            double[] oldValues = values;
+
+            keys = new long[capacity];
+            values = new double[capacity];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY)
+                    put(oldKeys[i], (int) mix(oldKeys[i]), oldValues[i]);
+            }
+        }
+
+        void clear() {
+            keys = new long[16];
+            values = new double[16];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    /**
+     * 슬롯 번호의 하위 비트가 같은 슬롯들의 짝 목록
+     */
+    private static class Partners {
+
+        private int[][] lists = new int[0][];
+        private int[] sizes = new int[0];
+
+        int[] get(int slot) {
+            int index = slot >>> 6;
+            return index < lists.length ? lists[index] : null;
+        }
+
+        int size(int slot) {
+            int index = slot >>> 6;
+            return index < sizes.length ? sizes[index] : 0;
+        }
+
+        void add(int slot, int partner) {
+
+            int index = slot >>> 6;
+
+            if (index >= lists.length) {
+                int capacity = Math.max(index + 1, lists.length * 2);
+                lists = Arrays.copyOf(lists, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+
+            int[] list = lists[index];
+
+            if (list == null)
+                list = lists[index] = new int[4];
+            else if (sizes[index] == list.length)
+                list = lists[index] = Arrays.copyOf(list, list.length * 2);
+
+            list[sizes[index]++] = partner;
+        }
+
+        void remove(int slot, int partner) {
+
+            int index = slot >>> 6;
+            if (index >= lists.length) return;
+
+            int[] list = lists[index];
+
+            for (int i = 0; i < sizes[index]; i++) {
+                if (list[i] == partner) {
+                    list[i] = list[--sizes[index]];
+                    return;
+                }
+            }
+        }
+
+        void clear(int slot) {
+            int index = slot >>> 6;
+            if (index >= lists.length) return;
+            lists[index] = null;
+            sizes[index] = 0;
+        }
+
+        void clearAll() {
+            lists = new int[0][];
+            sizes = new int[0];
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * JDK Vector API(jdk.incubator.vector)를 사용하는 프레임 거리 커널
+ * <p>
+ * 상대 행렬의 계수별 배치(SLFrameMatrix.columns)에서 연속된 프레임들을 한 벡터로 읽어
+ * 여러 프레임과의 계수 차이 제곱을 fused multiply-add로 동시에 누적한다.
+ * 제곱 노름과 내적으로 거리를 구하는 방식(|a|^2 + |b|^2 - 2(a · b))은 float에서 상쇄 오차가 커서
+ * 계수 값이 큰 특징(legacy 프로파일 등)에서 가까운 프레임의 거리가 크게 틀어지므로 사용하지 않는다.
+ * 계산은 float 정밀도로 이루어지며, 모든 프레임이 레인마다 같은 순서의 연산을 거치므로
+ * 결과는 CPU의 벡터 폭과 상관없이 같다.
+ * <p>
+ * 이 클래스는 jdk.incubator.vector 모듈이 로드된 경우에만 SLDtw가 리플렉션으로 생성한다.
+ */
+public class SLVectorFrameKernel implements SLFrameKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    /**
+     * 스레드별로 재사용되는 벡터 한 개 크기의 버퍼
+     */
+    private static final ThreadLocal<float[]> scratch = ThreadLocal.withInitial(() -> new float[SPECIES.length()]);
+
+    /**
+     * 벡터 폭이 너무 좁은 환경에서는 생성되지 않는다.
+     *
+     * @throws UnsupportedOperationException
+     */
+    public SLVectorFrameKernel() {
+        if (SPECIES.length() < 4)
+            throw new UnsupportedOperationException("Vector species " + SPECIES + " is too narrow.");
+    }
+
+    @Override
+    public String getId() {
+        return "vector-f32";
+    }
+
+    @Override
+    public void getDistances(SLFrameMatrix n, int frame, SLFrameMatrix m, int from, int to, double[] costs) {
+
+        float[] a = n.data;
+        float[] columns = m.columns;
+        int dimension = n.dimension;
+        int frames = m.frames;
+        int aOffset = frame * dimension;
+
+        int length = SPECIES.length();
+
+        int j = from;
+
+        // 벡터 폭보다 짧은 구간은 벡터의 한 레인과 같은 연산으로 계산한다.
+        if (to - from < length) {
+
+            for (; j < to; j++) {
+
+                float sum = 0;
+
+                for (int k = 0; k < dimension; k++) {
+                    float difference = columns[k * frames + j] - a[aOffset + k];
+                    sum = Math.fma(difference, difference, sum);
+                }
+
+                costs[j] = (float) Math.sqrt(sum);
+            }
+            return;
+        }
+
+        float[] buffer = scratch.get();
+
+        while (true) {
+
+            // 마지막 벡터는 구간 끝에 맞추어 앞 벡터와 겹치게 읽는다. 겹친 프레임은 같은 값으로 다시 기록된다.
+            if (j > to - length)
+                j = to - length;
+
+            FloatVector sum = FloatVector.zero(SPECIES);
+
+            for (int k = 0; k < dimension; k++) {
+                FloatVector difference = FloatVector.fromArray(SPECIES, columns, k * frames + j).sub(a[aOffset + k]);
+                sum = difference.fma(difference, sum);
+            }
+
+            sum.sqrt().intoArray(buffer, 0);
+
+            for (int l = 0; l < length; l++)
+                costs[j + l] = buffer[l];
+
+            if (j + length >= to)
+                return;
+
+            j += length;
+        }
+    }
+}
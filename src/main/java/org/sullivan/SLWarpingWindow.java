@@ -0,0 +1,152 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+package org.sullivan;
+
+/**
+ * DTW 계산 시 평가할 셀의 범위를 제한하는 전역 제약(global constraint)
+ * <p>
+ * 같은 단어의 발음끼리는 극단적인 warping이 필요한 경우가 드물기 때문에,
+ * 대각선 주변의 셀만 계산하면 비교 비용을 O(n*m)에서 O(n*w)로 줄일 수 있다.
+ * 어떤 제약을 쓰더라도 (1, 1)에서 (n, m)까지의 경로가 항상 존재하도록 최소 폭을 보장한다.
+ */
+public class SLWarpingWindow {
+
+    /**
+     * 제약 종류
+     */
+    public enum Type {
+        NONE("none"), SAKOE_CHIBA("sakoe-chiba"), ITAKURA("itakura");
+
+        public String label;
+
+        Type(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * 제약 없음 (전체 행렬을 계산한다)
+     */
+    public static final SLWarpingWindow NONE = new SLWarpingWindow(Type.NONE, 1f);
+
+    /**
+     * Itakura parallelogram의 최대 기울기
+     */
+    public static float ITAKURA_SLOPE = 2f;
+
+    /**
+     * 제약 종류
+     */
+    public final Type type;
+
+    /**
+     * Sakoe-Chiba 밴드의 폭 (긴 쪽 프레임 수에 대한 비율)
+     */
+    public final float ratio;
+
+    public SLWarpingWindow(Type type, float ratio) {
+        this.type = type;
+        this.ratio = ratio;
+    }
+
+    /**
+     * 이름과 비율로부터 제약을 생성한다. 알 수 없는 이름이면 null을 리턴한다.
+     *
+     * @param label
+     * @param ratio
+     * @return
+     */
+    public static SLWarpingWindow fromLabel(String label, float ratio) {
+
+        for (Type type : Type.values()) {
+            if (type.label.equals(label))
+                return type == Type.NONE ? NONE : new SLWarpingWindow(type, ratio);
+        }
+        return null;
+    }
+
+    /**
+     * i번째 행(1부터 시작)에서 계산할 첫 번째 열을 구한다.
+     *
+     * @param i
+     * @param n 행(기준 노드)의 프레임 수
+     * @param m 열(비교 노드)의 프레임 수
+     * @return
+     */
+    public int getLower(int i, int n, int m) {
+
+        if (type == Type.NONE)
+            return 1;
+
+        double center = (double) i * m / n;
+        int lower = (int) Math.ceil(center - getCorridor(n, m));
+
+        if (type == Type.ITAKURA) {
+            double x = (double) i / n;
+            lower = Math.min(lower, (int) Math.ceil(m * Math.max(x / ITAKURA_SLOPE, ITAKURA_SLOPE * x - (ITAKURA_SLOPE - 1))));
+        }
+
+        return Math.max(1, lower);
+    }
+
+    /**
+     * i번째 행(1부터 시작)에서 계산할 마지막 열을 구한다.
+     *
+     * @param i
+     * @param n 행(기준 노드)의 프레임 수
+     * @param m 열(비교 노드)의 프레임 수
+     * @return
+     */
+    public int getUpper(int i, int n, int m) {
+
+        if (type == Type.NONE)
+            return m;
+
+        double center = (double) i * m / n;
+        int upper = (int) Math.floor(center + getCorridor(n, m));
+
+        if (type == Type.ITAKURA) {
+            double x = (double) i / n;
+            upper = Math.max(upper, (int) Math.floor(m * Math.min(ITAKURA_SLOPE * x, (x + (ITAKURA_SLOPE - 1)) / ITAKURA_SLOPE)));
+        }
+
+        return Math.min(m, upper);
+    }
+
+    /**
+     * 대각선 주변으로 항상 계산되는 통로의 반폭을 구한다.
+     * 길이 차가 큰 노드끼리도 경로가 끊기지 않도록 한 행당 대각선이 이동하는 거리보다 넓게 잡는다.
+     *
+     * @param n
+     * @param m
+     * @return
+     */
+    private double getCorridor(int n, int m) {
+
+        double minimum = Math.ceil((double) m / n) + 1;
+
+        if (type == Type.SAKOE_CHIBA)
+            return Math.max(minimum, Math.ceil(ratio * Math.max(n, m)));
+
+        return minimum;
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.SAKOE_CHIBA ? type.label + " (" + ratio + ")" : type.label;
+    }
+}
@@ -16,15 +16,109 @@
 
 package org.sullivan;
 
-import be.tarsos.dsp.io.TarsosDSPAudioFormat;
-import be.tarsos.dsp.io.jvm.WaveformWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Wav 파일을 쓴다.
+ * <p>
+ * 샘플은 32bit float 그대로 기록하므로 다시 읽으면 저장 전과 비트 단위로 같은 음성을 얻는다.
+ * 저장은 백그라운드 스레드에서 이루어지며, 임시 파일에 먼저 쓴 후 옮기므로 다른 스레드가 쓰다 만 파일을 읽는 일은 없다.
  */
-public class SLWaveWriter extends WaveformWriter{
+public class SLWaveWriter {
 
-    public SLWaveWriter(TarsosDSPAudioFormat format, String name) {
-        super(format, name);
+    private static final int FORMAT_IEEE_FLOAT = 3;
+
+    /**
+     * 헤더 크기 (RIFF, fmt , data 청크 헤더)
+     */
+    private static final int HEADER_SIZE = 44;
+
+    /**
+     * 파일 저장을 처리하는 스레드
+     */
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor((Runnable runnable) -> {
+        Thread thread = new Thread(runnable, "sullivan-wave-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * PCM 데이터를 비동기로 저장한다. 샘플은 호출 시점에 복사된다.
+     *
+     * @param pcmData
+     * @param path
+     */
+    public static void write(SLPcmData pcmData, String path) {
+
+        byte[] bytes = encode(pcmData);
+        File target = new File(path);
+
+        writer.submit(() -> write(bytes, target));
+    }
+
+    /**
+     * mono 32bit float RIFF/WAVE 데이터로 변환한다.
+     *
+     * @param pcmData
+     * @return
+     */
+    private static byte[] encode(SLPcmData pcmData) {
+
+        int dataSize = pcmData.data.length * Float.BYTES;
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.put(new byte[]{'R', 'I', 'F', 'F'});
+        buffer.putInt(HEADER_SIZE - 8 + dataSize);
+        buffer.put(new byte[]{'W', 'A', 'V', 'E'});
+
+        buffer.put(new byte[]{'f', 'm', 't', ' '});
+        buffer.putInt(16);
+        buffer.putShort((short) FORMAT_IEEE_FLOAT);
+        buffer.putShort((short) 1); // 채널 수
+        buffer.putInt(pcmData.sampleRate);
+        buffer.putInt(pcmData.sampleRate * Float.BYTES); // 초당 바이트 수
+        buffer.putShort((short) Float.BYTES); // 블록 크기
+        buffer.putShort((short) Float.SIZE);
+
+        buffer.put(new byte[]{'d', 'a', 't', 'a'});
+        buffer.putInt(dataSize);
+        buffer.asFloatBuffer().put(pcmData.data);
+
+        return buffer.array();
+    }
+
+    private static void write(byte[] bytes, File target) {
+
+        File temporaryFile = new File(target.getPath() + ".tmp");
+
+        try {
+            Files.write(temporaryFile.toPath(), bytes);
+            Files.move(temporaryFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 지금까지 요청된 파일 저장이 모두 끝날 때까지 기다린다.
+     */
+    public static void flush() {
+        try {
+            writer.submit(() -> {
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
     }
 }
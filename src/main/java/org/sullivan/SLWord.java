@@ -17,16 +17,32 @@
 package org.sullivan;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
  * 한 단어를 표현하는 클래스
  * <p>
  * 단어의 발음에 대한 모든 정보가 여기에 저장되고,
  * 이 단어와 관련한 모든 작업이 여기서 처리된다.
+ * <p>
+ * 모델을 바꾸는 작업은 모두 업데이터의 단일 스레드에서 write lock을 잡고 실행되며,
+ * 평가와 보고서 작성은 read lock을 잡고 실행된다.
  */
 public class SLWord {
 
+    /**
+     * 학습 대기열에 보관할 수 있는 채점 결과의 최대 수. 채점된 노드와 특성행렬이 learn 전까지 메모리에 남는다.
+     */
+    public static int MAXIMUM_PENDING_LEARNING = 1000;
+
     /**
      * 워드의 이름
      */
@@ -47,59 +63,432 @@ public class SLWord {
      */
     public SLClusterLayer layer;
 
+    /**
+     * 노드 간 거리 계산에 사용되는 DTW 전역 제약
+     */
+    public SLWarpingWindow warpingWindow = SLWarpingWindow.NONE;
+
+    /**
+     * 노드의 특징 추출 프로필. 워드의 모든 노드는 같은 프로필로 추출되어야 비교할 수 있다.
+     */
+    public SLFeatureProfile featureProfile = SLFeatureProfile.DEFAULT;
+
+    /**
+     * 실패사례 클러스터별 최적 교정 경로 캐시 (두 레이어의 버전이 같을 때만 유효)
+     */
+    private Map<SLCluster, SLCmvPath<SLCluster>> pathCache;
+    private long pathCacheFailureVersion = -1;
+    private long pathCacheSuccessVersion = -1;
+
+    /**
+     * 학습 대기 중인 채점 결과 (applyLearning()이 호출될 때 모델에 반영된다)
+     */
+    private Queue<SLEvaluationReport> pendingLearning;
+
+    /**
+     * 워드 모델 lock (모델 변경: write, 평가와 보고서: read)
+     */
+    public ReentrantReadWriteLock modelLock;
+
+    /**
+     * 모델 변경 작업 큐
+     */
+    public SLModelUpdater updater;
+
 
     public SLWord(String name, SLWordInfo info) {
 
         this.name = name;
         this.info = info;
 
-        nodes = new SLDistanceMap<>();
+        nodes = new SLDistanceMap<>(new SLMetric<SLNode>() {
+            @Override
+            public double getDistance(SLNode node1, SLNode node2) {
+                return node1.getDistance(node2, warpingWindow);
+            }
+
+            @Override
+            public double getDistance(SLNode node1, SLNode node2, double cutoff) {
+                return node1.getDistance(node2, warpingWindow, cutoff);
+            }
+
+            @Override
+            public double getLowerBound(SLNode node1, SLNode node2) {
+                return node1.getLowerBound(node2);
+            }
+        }, SLDistanceMap.Storage.DENSE);
         layer = new SLClusterLayer(nodes);
+
+        pathCache = new HashMap<>();
+        pendingLearning = new ConcurrentLinkedQueue<>();
+
+        modelLock = new ReentrantReadWriteLock();
+        updater = new SLModelUpdater(name, modelLock);
+
+        layer.model.updater = updater;
+        layer.success.updater = updater;
+        layer.failure.updater = updater;
+    }
+
+    /**
+     * read lock을 잡은 상태에서 모델을 읽는다. 읽는 동안 모델은 바뀌지 않는다.
+     *
+     * @param reader
+     * @return
+     */
+    public <V> V read(Supplier<V> reader) {
+        modelLock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            modelLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * DTW 전역 제약을 변경한다. 캐시된 거리는 폐기되고 모든 레이어가 다시 분석된다.
+     *
+     * @param window
+     */
+    public void setWarpingWindow(SLWarpingWindow window) {
+
+        updater.submitAndWait(() -> {
+
+            this.warpingWindow = window;
+            nodes.invalidate();
+
+            layer.model.analyzer.initialize();
+            layer.success.analyzer.initialize();
+            layer.failure.analyzer.initialize();
+
+            return null;
+        });
+    }
+
+    /**
+     * 주어진 전역 제약이 제약 없는 DTW에 비해 클러스터 배정을 얼마나 바꾸는지 보고한다.
+     * <p>
+     * 각 노드에 대해 소속 레이어에서 가장 가까운 클러스터(centroid 기준)와,
+     * 모델 레이어 대비 성공/실패 분류를 두 방식으로 각각 구해 비교한다.
+     *
+     * @param window
+     * @return
+     */
+    public String compareWarpingWindow(SLWarpingWindow window) {
+        return read(() -> getWarpingWindowComparison(window));
+    }
+
+    private String getWarpingWindowComparison(SLWarpingWindow window) {
+
+        String report = "";
+
+        report += "warping window: " + window + " (baseline: " + SLWarpingWindow.NONE + ")\n";
+
+        int total = 0;
+        int reclassified = 0;
+        double deviation = 0;
+
+        for (SLClusterGroup group : new SLClusterGroup[]{layer.model, layer.success, layer.failure}) {
+
+            List<SLCluster> clusters = group.clusters.getList();
+            int reassigned = 0;
+
+            for (SLNode node : group.nodes) {
+
+                if (getClosestCluster(node, clusters, SLWarpingWindow.NONE) != getClosestCluster(node, clusters, window))
+                    reassigned++;
+
+                // 모델 레이어 대비 분류
+                SLCluster baselineModel = getClosestCluster(node, layer.model.clusters.getList(), SLWarpingWindow.NONE);
+                SLCluster constrainedModel = getClosestCluster(node, layer.model.clusters.getList(), window);
+
+                if (baselineModel == null || constrainedModel == null)
+                    continue;
+
+                double baselineDistance = baselineModel.getCentroid().getDistance(node, SLWarpingWindow.NONE);
+                double constrainedDistance = constrainedModel.getCentroid().getDistance(node, window);
+
+                if ((baselineDistance > SLCluster.DISTANCE_THRESHOLD) != (constrainedDistance > SLCluster.DISTANCE_THRESHOLD))
+                    reclassified++;
+
+                if (baselineDistance > 0)
+                    deviation += (constrainedDistance - baselineDistance) / baselineDistance;
+
+                total++;
+            }
+
+            report += "    " + getLayerName(group) + " layer: " + reassigned + " / " + group.nodes.size() + " nodes reassigned\n";
+        }
+
+        report += "    classification changed: " + reclassified + " / " + total + "\n";
+        report += "    mean distance change: " + (total > 0 ? Math.round(deviation * 10000 / total) / 100d : 0) + "%\n";
+
+        return report;
+    }
+
+    /**
+     * 주어진 제약에서 노드와 centroid가 가장 가까운 클러스터를 찾는다.
+     *
+     * @param node
+     * @param clusters
+     * @param window
+     * @return
+     */
+    private SLCluster getClosestCluster(SLNode node, List<SLCluster> clusters, SLWarpingWindow window) {
+
+        double minimum = Double.POSITIVE_INFINITY;
+        SLCluster closestCluster = null;
+
+        for (SLCluster cluster : clusters) {
+
+            double distance = cluster.getCentroid().getDistance(node, window);
+            if (distance < minimum) {
+                minimum = distance;
+                closestCluster = cluster;
+            }
+        }
+        return closestCluster;
+    }
+
+    private String getLayerName(SLClusterGroup group) {
+        if (group == layer.model) return "model";
+        if (group == layer.success) return "success";
+        return "failure";
     }
 
     /**
      * 클러스터 분석을 통해 노드의 성질을 유추한다.
+     * <p>
+     * 현재 모델에 대해 채점한 리포트를 바로 리턴하고, 노드의 삽입은 업데이터 큐에서 처리된다.
+     * 채점 중 계산된 노드와의 거리는 삽입할 때 워드 노드 맵으로 옮겨진다.
+     * 리포트의 내용을 읽을 때는 read()를 사용한다.
      *
      * @param node
      * @return
      */
     public SLEvaluationReport evaluate(SLNode node) {
 
-        // 결과 리포트
-        SLEvaluationReport report = new SLEvaluationReport();
-        report.attempt = node;
+        SLOverlayDistanceMap<SLNode> overlay = new SLOverlayDistanceMap<>(nodes, nodes.metric);
 
-        // 가장 유사한 모델 클러스터
-        SLCluster closestModelCluster;
+        SLEvaluationReport report = read(() -> score(node, overlay));
 
-        // 노드가 분석에 의해 추가된 클러스터
-        SLCluster analyzedCluster;
+        updater.submit(() -> {
+            overlay.commit(node);
+            insert(node, report.classifiedAsFailure);
+        });
 
-        // 모델 클러스터에서 가장 인접한 노드를 찾는다.
-        nodes.add(node); // 노드 db 프리캐시 - 성능 향상에 도움이 된다.
-        closestModelCluster = layer.model.clusters.getClosestElement(node.asCluster(layer.model));
+        return report;
+    }
 
-        // 근접 유사도를 검사한다.
-        double distance = closestModelCluster.getDistance(node.asCluster(layer.model));
+    /**
+     * 여러 노드를 한 번에 평가한다.
+     * <p>
+     * 1. 모든 노드를 같은 모델 상태에 대해 병렬로 채점한다. (모델은 바뀌지 않는다)
+     * 2. 분류 결과에 따라 성공/실패 클러스터에 입력 순서대로 삽입하는 작업을 업데이터 큐에 넣는다.
+     * 1단계 동안은 클러스터 구성이 바뀌지 않으므로 교정 경로 캐시가 재사용된다.
+     *
+     * @param attempts
+     * @return 입력 순서대로 정렬된 리포트
+     */
+    public List<SLEvaluationReport> evaluateBatch(List<SLNode> attempts) {
 
-        // 최대 유사도 거리 한계치를 벗어날 경우: Failure 클러스터에 삽입한다.
-        if (distance > SLCluster.DISTANCE_THRESHOLD) {
-            report.classifiedAsFailure = true;
-            analyzedCluster = layer.failure.addNode(node);
+        List<SLEvaluationReport> reports = new ArrayList<>(attempts.size());
+        List<SLOverlayDistanceMap<SLNode>> overlays = new ArrayList<>(attempts.size());
+
+        for (int i = 0; i < attempts.size(); i++) {
+            reports.add(null);
+            overlays.add(new SLOverlayDistanceMap<>(nodes, nodes.metric));
         }
 
-        // 한계치 내부에 있을 경우: Success 클러스터에 삽입한다.
-        else {
-            report.classifiedAsFailure = false;
-            analyzedCluster = layer.success.addNode(node);
+        read(() -> {
+            IntStream.range(0, attempts.size()).parallel().forEach((int i) ->
+                    reports.set(i, score(attempts.get(i), overlays.get(i)))
+            );
+            return null;
+        });
+
+        updater.submit(() -> {
+            for (int i = 0; i < attempts.size(); i++) {
+                overlays.get(i).commit(attempts.get(i));
+                insert(attempts.get(i), reports.get(i).classifiedAsFailure);
+            }
+        });
+
+        return reports;
+    }
+
+    /**
+     * 모델을 바꾸지 않고 노드를 채점한다.
+     * <p>
+     * 노드는 워드 노드 맵에 추가되지 않으며, 노드가 포함된 거리는 이 채점에서만 쓰이는 임시 맵에 캐시된다.
+     * 기존 노드 간 거리는 워드 노드 맵의 캐시를 그대로 사용한다.
+     * 발음 특성과 교정 경로는 노드가 삽입되었다면 속했을 클러스터를 기준으로 분석한다.
+     * 채점 결과를 모델에 반영하려면 learn()으로 등록한 후 applyLearning()을 호출한다.
+     *
+     * @param node
+     * @return
+     */
+    public SLEvaluationReport score(SLNode node) {
+        return read(() -> score(node, new SLOverlayDistanceMap<>(nodes, nodes.metric)));
+    }
+
+    /**
+     * 주어진 임시 거리 맵을 사용하여 노드를 채점한다. read lock 안에서 호출되어야 한다.
+     *
+     * @param node
+     * @param overlay
+     * @return
+     */
+    private SLEvaluationReport score(SLNode node, SLOverlayDistanceMap<SLNode> overlay) {
+
+        SLClusterGroup context = new SLClusterGroup(overlay);
+
+        SLEvaluationReport report = classify(node, context);
+        report.distances = overlay;
+        place(report, context);
+        analyze(report);
+
+        return report;
+    }
+
+    /**
+     * 채점 결과를 학습 대기열에 등록한다. 모델은 applyLearning()이 호출될 때 바뀐다.
+     * 대기열이 가득 찼다면 등록하지 않는다.
+     *
+     * @param report
+     * @return 등록되었는지 여부
+     */
+    public boolean learn(SLEvaluationReport report) {
+
+        // 크기 확인과 추가가 엇갈려 약간 넘칠 수는 있지만, 대기열이 한없이 커지지는 않는다.
+        if (pendingLearning.size() >= MAXIMUM_PENDING_LEARNING) {
+            System.out.println("Warning: Learning queue of '" + name + "' is full. Run 'learn' to apply pending pronunciations.");
+            return false;
         }
 
-        // 클러스터 특성을 분석한다.
-        report.characteristics.analyzed = analyzedCluster;
+        pendingLearning.add(report);
+        return true;
+    }
+
+    /**
+     * 학습 대기 중인 채점 결과의 수
+     *
+     * @return
+     */
+    public int getPendingLearningCount() {
+        return pendingLearning.size();
+    }
+
+    /**
+     * 학습 대기열의 채점 결과들을 등록 순서대로 성공/실패 클러스터에 삽입한다.
+     * 분류는 채점 당시의 결과를 그대로 사용한다. (모델 레이어는 학습으로 바뀌지 않는다)
+     * 채점 중 계산된 거리는 evaluate()와 마찬가지로 워드 노드 맵으로 옮겨진다.
+     * 삽입은 업데이터 큐에서 처리되며, 끝날 때까지 기다린다.
+     *
+     * @return 반영된 결과의 수
+     */
+    public int applyLearning() {
+
+        Integer learned = updater.submitAndWait(() -> {
+
+            int count = 0;
+
+            SLEvaluationReport report;
+            while ((report = pendingLearning.poll()) != null) {
+
+                // 채점 이후 전역 제약이 바뀌지 않았다면 채점 중 계산된 거리를 그대로 옮긴다.
+                if (report.distances != null && report.warpingWindow == warpingWindow)
+                    report.distances.commit(report.attempt);
+                else if (!nodes.hasElement(report.attempt))
+                    nodes.add(report.attempt);
+
+                report.distances = null;
+
+                insert(report.attempt, report.classifiedAsFailure);
+                count++;
+            }
+
+            return count;
+        });
+
+        return learned == null ? 0 : learned;
+    }
+
+    /**
+     * 노드를 가장 가까운 모델 클러스터와 비교하여 성공/실패를 분류한다. 모델을 바꾸지 않는다.
+     *
+     * @param node
+     * @param context 노드를 감쌀 임시 클러스터의 그룹. 노드와의 거리는 이 그룹의 노드 맵에 캐시된다.
+     * @return
+     */
+    private SLEvaluationReport classify(SLNode node, SLClusterGroup context) {
+
+        // 결과 리포트
+        SLEvaluationReport report = new SLEvaluationReport();
+        report.attempt = node;
+        report.warpingWindow = warpingWindow;
+
+        SLCluster attemptCluster = node.asCluster(context);
+
+        // 모델 클러스터에서 가장 인접한 노드를 찾는다.
+        SLCluster closestModelCluster = layer.model.clusters.getClosestElement(attemptCluster);
+
+        // 근접 유사도를 검사한다.
+        double distance = attemptCluster.getDistance(closestModelCluster);
+
+        // 최대 유사도 거리 한계치를 벗어날 경우: Failure, 한계치 내부에 있을 경우: Success
+        report.classifiedAsFailure = distance > SLCluster.DISTANCE_THRESHOLD;
 
         // 1. 모델 특성: 어떤 모델에 가장 가까운가.
         report.characteristics.model = closestModelCluster;
 
+        return report;
+    }
+
+    /**
+     * 분류 결과에 따라 노드를 성공 또는 실패 클러스터에 삽입한다. 업데이터 스레드에서만 호출된다.
+     *
+     * @param node
+     * @param classifiedAsFailure
+     * @return 노드가 추가된 클러스터
+     */
+    private SLCluster insert(SLNode node, boolean classifiedAsFailure) {
+
+        if (classifiedAsFailure)
+            return layer.failure.addNode(node);
+        else
+            return layer.success.addNode(node);
+    }
+
+    /**
+     * 노드를 삽입하지 않고, 삽입되었다면 속했을 클러스터를 찾는다.
+     * threshold 안에 기존 클러스터가 있다면 그 클러스터(centroid는 삽입 전 그대로)를, 없다면 노드만으로 된 임시 클러스터를 리턴한다.
+     *
+     * @param report
+     * @param context 임시 클러스터의 그룹
+     */
+    private void place(SLEvaluationReport report, SLClusterGroup context) {
+
+        SLClusterGroup group = report.classifiedAsFailure ? layer.failure : layer.success;
+        SLCluster attemptCluster = report.attempt.asCluster(context);
+
+        SLCluster closestCluster = group.clusters.getClosestElement(attemptCluster);
+
+        if (closestCluster != null && attemptCluster.getDistance(closestCluster) < SLCluster.DISTANCE_THRESHOLD)
+            report.characteristics.analyzed = closestCluster;
+        else
+            report.characteristics.analyzed = attemptCluster;
+    }
+
+    /**
+     * 삽입된 클러스터를 기준으로 발음 특성과 교정 경로를 분석한다.
+     *
+     * @param report
+     */
+    private void analyze(SLEvaluationReport report) {
+
+        SLCluster analyzedCluster = report.characteristics.analyzed;
+
         // 2. 세부 발음 특성: THRESHOLD 내에 있는 클러스터거나,
         // 거리의 Gaussian 분포에서 유사도 상위 30%안에 있는 클러스터의 특성을 제시한다.
         report.characteristics.success = layer.success.clusters.getCloseElements(analyzedCluster, 0.3f);
@@ -111,73 +500,258 @@ public class SLWord {
         // 4. 교정 (Failure 의 경우)
         // success layer 까지의 최단경로를 찾는다. 이 때 경로는
         // d = P * sqrt(n) * max(d1, d2, ... , dn)으로 모델링한다. (P는 보정 상수)
-
-        /**
-         * analyzed cluster (failure layer)에서 시작한다.
-         * BFS로 노드를 계산하는데...
-         * 재귀 + DP(캐싱) 사용
-         */
-
         if (report.classifiedAsFailure) {
             report.backtrackingPath = getOptimalPathToSuccess(analyzedCluster);
         }
-
-        return report;
     }
 
     /**
      * 실패사례 레이어의 특정 클러스터가 성공사례 레이어로 가기까지의 최적 경로를 계산한다.
+     * 결과는 두 레이어의 클러스터 구성이 바뀌기 전까지 캐시된다.
      *
      * @param start
      * @return
      */
     private SLCmvPath<SLCluster> getOptimalPathToSuccess(SLCluster start) {
-        return getOptimalPathToSuccess(start, new ArrayList<>());
+
+        // 채점용 임시 클러스터의 경로는 캐시하지 않는다.
+        if (start.getContext() != layer.failure)
+            return searchOptimalPathToSuccess(start);
+
+        long failureVersion = layer.failure.getVersion();
+        long successVersion = layer.success.getVersion();
+
+        SLCmvPath<SLCluster> path;
+
+        // 여러 평가가 동시에 캐시를 읽을 수 있다.
+        synchronized (pathCache) {
+
+            if (failureVersion != pathCacheFailureVersion || successVersion != pathCacheSuccessVersion) {
+                pathCache.clear();
+                pathCacheFailureVersion = failureVersion;
+                pathCacheSuccessVersion = successVersion;
+            }
+
+            path = pathCache.get(start);
+        }
+
+        if (path == null) {
+            path = searchOptimalPathToSuccess(start);
+
+            synchronized (pathCache) {
+                if (failureVersion == pathCacheFailureVersion && successVersion == pathCacheSuccessVersion)
+                    pathCache.put(start, path);
+            }
+        }
+
+        return path;
     }
 
-    private SLCmvPath<SLCluster> getOptimalPathToSuccess(SLCluster start, List<SLCluster> excluded) {
+    /**
+     * CMV 코스트 P * sqrt(N) * max(d1, ..., dN-1)가 최소인 경로를 찾는다.
+     * 경로는 start에서 출발해 실패사례 클러스터들을 거친 뒤, 마지막 클러스터와 가장 가까운 성공사례 클러스터에서 끝난다.
+     *
+     * @param start
+     * @return
+     */
+    private SLCmvPath<SLCluster> searchOptimalPathToSuccess(SLCluster start) {
 
-        List<SLCluster> targetClusters = layer.failure.clusters.getList();
+        List<SLCluster> failureClusters = layer.failure.clusters.getList();
 
-        // 이 노드가 종착점일 경우
-        SLCmvPath<SLCluster> optimalPath = new SLCmvPath<>();
+        if (!failureClusters.contains(start))
+            failureClusters.add(start);
 
-        // 가장 가까운 success 클러스터를 찾는다.
-        SLCluster closestCluster = layer.success.clusters.getClosestElement(start);
-        optimalPath.addStep(closestCluster);
-        optimalPath.addStepToFront(start);
+        int size = failureClusters.size();
+        int origin = failureClusters.indexOf(start);
 
-        for (SLCluster targetCluster : targetClusters) {
-            if (excluded.contains(targetCluster)) continue;
+        // 각 클러스터에서 성공사례 레이어로 빠져나가는 간선
+        SLCluster[] sinks = new SLCluster[size];
+        double[] exits = new double[size];
 
-            List<SLCluster> subExcluded = new ArrayList<>(excluded);
-            subExcluded.add(start);
+        for (int i = 0; i < size; i++) {
+            sinks[i] = layer.graph.getSink(failureClusters.get(i));
+            exits[i] = layer.graph.getExit(failureClusters.get(i));
+        }
 
-            // 이 노드가 종착점이 아닌 가장 짧은 노드. 재귀적으로 계산
-            SLCmvPath<SLCluster> path = getOptimalPathToSuccess(targetCluster, subExcluded);
-            path.addStepToFront(start);
+        // 성공사례 클러스터가 없다면 경로도 없다.
+        if (layer.success.clusters.size() < 1)
+            return new SLCmvPath<SLCluster>().addStep(start);
 
-            // 새로 구한 경로가 더 좋으면 교체
-            if (path.getCost() < optimalPath.getCost()) {
-                optimalPath = path;
+        // 실패사례 클러스터 간 간선
+        double[][] edges = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                edges[i][j] = edges[j][i] = layer.graph.getDistance(failureClusters.get(i), failureClusters.get(j));
             }
         }
 
+        int[] indices = searchMinimaxPath(origin, edges, exits);
+
+        SLCmvPath<SLCluster> optimalPath = new SLCmvPath<>();
+
+        if (indices.length == 0)
+            return optimalPath.addStep(start);
+
+        for (int i : indices)
+            optimalPath.addStep(failureClusters.get(i));
+
+        optimalPath.addStep(sinks[indices[indices.length - 1]]);
+
+        // 코스트도 그래프의 간선으로 미리 계산해 둔다.
+        optimalPath.getCost(layer.graph);
+
         return optimalPath;
     }
 
+    /**
+     * 실패사례 클러스터 간 간선과 성공사례 레이어로 빠져나가는 간선만으로 CMV 코스트가 최소인 경로를 찾는다.
+     * <p>
+     * 코스트가 경로 길이에 의존하므로, 실패사례 클러스터 k개를 거치는 경로의 최소 병목값 B(k)를
+     * 레이어 단위 DP로 구해 P * sqrt(k + 1) * B(k)를 비교한다.
+     * 길이 제한이 없는 최소 병목값 β(minimax Dijkstra)보다 B(k)가 작을 수 없으므로,
+     * P * sqrt(k + 2) * β가 현재 최소 코스트 이상이 되면 탐색을 종료한다.
+     * 같은 클러스터를 두 번 지나는 경로는 지나지 않는 경로보다 항상 코스트가 크므로 단순 경로만 고려하는 것과 같다.
+     *
+     * @param origin 출발하는 클러스터의 번호
+     * @param edges  클러스터 간 간선의 가중치
+     * @param exits  각 클러스터에서 성공사례 레이어로 빠져나가는 간선의 가중치
+     * @return 거쳐 가는 실패사례 클러스터의 번호 (origin부터 순서대로). 빠져나갈 수 없다면 빈 배열
+     */
+    static int[] searchMinimaxPath(int origin, double[][] edges, double[] exits) {
+
+        int size = exits.length;
+
+        double bound = getMinimaxBottleneck(origin, edges, exits);
+
+        // reach[i]: 실패사례 클러스터 k개를 거쳐 i에 도달하는 경로의 최소 병목값
+        double[] reach = new double[size];
+        Arrays.fill(reach, Double.POSITIVE_INFINITY);
+        reach[origin] = 0;
+
+        List<int[]> parents = new ArrayList<>();
+
+        double minimumCost = Double.POSITIVE_INFINITY;
+        int bestLength = 0;
+        int bestEnd = -1;
+
+        for (int k = 1; k <= size; k++) {
+
+            // k개의 실패사례 클러스터를 거친 후 성공사례 레이어로 빠져나가는 경우
+            for (int i = 0; i < size; i++) {
+
+                double bottleneck = Math.max(reach[i], exits[i]);
+                if (bottleneck == Double.POSITIVE_INFINITY) continue;
+
+                double cost = SLCmvPath.correctionCoefficient * Math.sqrt(k + 1) * bottleneck;
+                if (cost < minimumCost) {
+                    minimumCost = cost;
+                    bestLength = k;
+                    bestEnd = i;
+                }
+            }
+
+            // 더 긴 경로는 현재 최소 코스트보다 작을 수 없다.
+            if (SLCmvPath.correctionCoefficient * Math.sqrt(k + 2) * bound >= minimumCost)
+                break;
+
+            // 한 클러스터를 더 거치는 경우
+            double[] nextReach = new double[size];
+            int[] parent = new int[size];
+            Arrays.fill(nextReach, Double.POSITIVE_INFINITY);
+
+            for (int i = 0; i < size; i++) {
+                if (reach[i] == Double.POSITIVE_INFINITY) continue;
+
+                for (int j = 0; j < size; j++) {
+                    if (i == j) continue;
+
+                    double bottleneck = Math.max(reach[i], edges[i][j]);
+                    if (bottleneck < nextReach[j]) {
+                        nextReach[j] = bottleneck;
+                        parent[j] = i;
+                    }
+                }
+            }
+
+            parents.add(parent);
+            reach = nextReach;
+        }
+
+        int[] indices = new int[bestEnd < 0 ? 0 : bestLength];
+
+        for (int k = indices.length, i = bestEnd; k >= 1; k--) {
+            indices[k - 1] = i;
+            if (k > 1)
+                i = parents.get(k - 2)[i];
+        }
+
+        return indices;
+    }
+
+    /**
+     * 경로 길이에 제한이 없을 때 origin에서 성공사례 레이어까지의 최소 병목값을 구한다. (minimax Dijkstra)
+     *
+     * @param origin
+     * @param edges
+     * @param exits
+     * @return
+     */
+    private static double getMinimaxBottleneck(int origin, double[][] edges, double[] exits) {
+
+        int size = exits.length;
+
+        double[] reach = new double[size];
+        boolean[] visited = new boolean[size];
+        Arrays.fill(reach, Double.POSITIVE_INFINITY);
+        reach[origin] = 0;
+
+        double bottleneck = Double.POSITIVE_INFINITY;
+
+        for (int step = 0; step < size; step++) {
+
+            int current = -1;
+            for (int i = 0; i < size; i++) {
+                if (!visited[i] && (current < 0 || reach[i] < reach[current]))
+                    current = i;
+            }
+
+            if (current < 0 || reach[current] == Double.POSITIVE_INFINITY)
+                break;
+
+            // 남은 클러스터는 모두 이보다 병목값이 크다.
+            if (reach[current] >= bottleneck)
+                break;
+
+            visited[current] = true;
+            bottleneck = Math.min(bottleneck, Math.max(reach[current], exits[current]));
+
+            for (int i = 0; i < size; i++) {
+                if (!visited[i] && i != current)
+                    reach[i] = Math.min(reach[i], Math.max(reach[current], edges[current][i]));
+            }
+        }
+
+        return bottleneck;
+    }
+
     /**
      * 이 클러스터의 상태에 대한 보고서를 리턴한다.
      *
      * @return
      */
     public String getStatus() {
+        return read(this::getStatusReport);
+    }
+
+    private String getStatusReport() {
 
         String report = "";
 
         report += "name: " + name + "\n";
         report += "version: " + info.version + "\n";
         report += "updated: " + info.registeredDate + "\n";
+        report += "warping window: " + warpingWindow + "\n";
+        report += "feature profile: " + featureProfile + "\n";
         report += "model layer: \n";
         report += "    total wordNodes: " + layer.model.nodes.size() + "\n";
         report += "    total clusters: " + layer.model.clusters.size() + "\n";
@@ -243,10 +817,16 @@ public class SLWord {
          */
         public SLClusterGroup failure;
 
+        /**
+         * 실패사례 -> 실패사례, 실패사례 -> 성공사례 클러스터 간 거리 그래프
+         */
+        public SLClusterGraph graph;
+
         public SLClusterLayer(SLDistanceMap<SLNode> wordNode) {
             this.model = new SLClusterGroup(wordNode);
             this.success = new SLClusterGroup(wordNode);
             this.failure = new SLClusterGroup(wordNode);
+            this.graph = new SLClusterGraph(failure, success);
         }
     }
 
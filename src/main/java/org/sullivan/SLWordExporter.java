@@ -55,11 +55,35 @@ public class SLWordExporter {
     }
 
     /**
-     * word 데이터를 export한다.
+     * word 데이터를 export한다. 큐에 남은 모델 변경을 모두 반영한 후 저장하며, 저장하는 동안 모델은 바뀌지 않는다.
      *
      * @param word
      */
     public void export(SLWord word) {
+        export(word, word.featureProfile);
+    }
+
+    /**
+     * 특징 추출 프로필을 바꾸어 word 데이터를 export한다. 다시 로드하면 모든 노드가 새 프로필로 추출된다.
+     *
+     * @param word
+     * @param featureProfile
+     */
+    public void export(SLWord word, SLFeatureProfile featureProfile) {
+
+        // 아직 처리되지 않은 노드 삽입이 빠지지 않도록 업데이트 큐를 비운다.
+        word.updater.flush();
+
+        word.read(() -> {
+            write(word, featureProfile);
+            return null;
+        });
+    }
+
+    private void write(SLWord word, SLFeatureProfile featureProfile) {
+
+        // 노드가 참조하는 전처리 음성 파일이 모두 저장된 후에 기록한다.
+        SLWaveWriter.flush();
 
         // 새 document를 만든다.
         document = builder.newDocument();
@@ -68,6 +92,8 @@ public class SLWordExporter {
         Element wordElement = document.createElement("word");
         wordElement.setAttribute("version", SLMain.ENGINE_VERSION);
         wordElement.setAttribute("registeredDate", new Timestamp(System.currentTimeMillis()).toString());
+        wordElement.setAttribute("warping", word.warpingWindow.type.label);
+        wordElement.setAttribute("warping-ratio", String.valueOf(word.warpingWindow.ratio));
         document.appendChild(wordElement);
 
         // name 노드
@@ -75,6 +101,17 @@ public class SLWordExporter {
         nameElement.setTextContent(word.name);
         wordElement.appendChild(nameElement);
 
+        // feature-profile 노드
+        Element profileElement = document.createElement("feature-profile");
+        profileElement.setAttribute("name", featureProfile.name);
+        profileElement.setAttribute("version", String.valueOf(SLFeatureExtractor.FEATURE_VERSION));
+        profileElement.setAttribute("sample-rate", String.valueOf(featureProfile.sampleRate));
+        profileElement.setAttribute("window", String.valueOf(featureProfile.windowSize));
+        profileElement.setAttribute("hop", String.valueOf(featureProfile.hopSize));
+        profileElement.setAttribute("fft", String.valueOf(featureProfile.fftSize));
+        profileElement.setAttribute("coefficients", String.valueOf(featureProfile.coefficientNumber));
+        wordElement.appendChild(profileElement);
+
         // layer 노드
         Element modelElement = generateLayerElement("model", word.layer.model.nodes);
         Element successElement = generateLayerElement("success", word.layer.success.nodes);
@@ -94,6 +131,9 @@ public class SLWordExporter {
         } catch (TransformerException e) {
             e.printStackTrace();
         }
+
+        // 계산된 노드 간 거리도 함께 저장한다.
+        SLDistanceCache.export(word, new File("./data/" + word.name + ".dist"));
     }
 
     /**
@@ -109,6 +149,9 @@ public class SLWordExporter {
 
         for (SLNode node : nodes) {
 
+            // 저장되지 않은 음성(메모리에서만 채점된 노드)은 다시 불러올 수 없다.
+            if (node.info.source == null) continue;
+
             Element dataElement = document.createElement("data");
 
             dataElement.setAttribute("uid", String.valueOf(node.uid));
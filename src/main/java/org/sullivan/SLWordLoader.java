@@ -28,8 +28,10 @@ import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 워드 데이터 파일(*.word)로부터 워드(한 단어에 관한 총괄 데이터)를 생성한다.
@@ -55,12 +57,16 @@ public class SLWordLoader {
      */
     private DocumentBuilderFactory builderFactory;
     private DocumentBuilder builder;
-    private Document document;
 
     /**
-     * 파일을 처리할 패스
+     * 노드 생성(디코딩, 특징 추출)을 동시에 처리할 최대 스레드 수
      */
-    private File targetPath;
+    public static int NODE_GENERATION_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 노드 생성 작업을 처리하는 스레드 풀
+     */
+    private ExecutorService executor;
 
 
     /**
@@ -74,6 +80,12 @@ public class SLWordLoader {
 
         listeners = new ArrayList<>();
 
+        executor = Executors.newFixedThreadPool(NODE_GENERATION_PARALLELISM, (Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "sullivan-node-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
         try {
             builder = builderFactory.newDocumentBuilder();
         } catch (ParserConfigurationException e) {
@@ -81,13 +93,27 @@ public class SLWordLoader {
         }
     }
 
-    public void load(File wordDataFile, SLWordLoaderListener callback) {
+    /**
+     * 워드 데이터 파일을 읽고 워드 생성을 시작한다. 워드 생성은 비동기적으로 이루어지며,
+     * 생성이 끝나면 리스너가 호출된다.
+     *
+     * @param wordDataFile
+     * @param callback
+     * @return 생성이 시작된 워드의 수 (0이라면 리스너는 호출되지 않는다)
+     */
+    public int load(File wordDataFile, SLWordLoaderListener callback) {
+
+        int dispatchedWords = 0;
+
         try {
 
-            targetPath = wordDataFile.getAbsoluteFile().getParentFile();
+            File targetPath = wordDataFile.getAbsoluteFile().getParentFile();
 
-            // XML 파일을 파싱한다.
-            document = builder.parse(wordDataFile);
+            // XML 파일을 파싱한다. DocumentBuilder는 스레드 안전하지 않다.
+            Document document;
+            synchronized (builder) {
+                document = builder.parse(wordDataFile);
+            }
             document.getDocumentElement().normalize();
 
             NodeList childNodes = document.getChildNodes();
@@ -101,17 +127,22 @@ public class SLWordLoader {
 
                 SLWordEntry wordEntry = getWordEntry(childNode);
 
-                if (wordEntry == null)
+                if (wordEntry == null) {
                     System.out.println("Invalid word data format.");
+                    continue;
+                }
 
-                generateWord(wordEntry, (SLWord word) -> {
-                    callback.onWordGenerated(word);
-                });
+                wordEntry.targetPath = targetPath;
+
+                generateWord(wordEntry, callback);
+                dispatchedWords++;
             }
 
         } catch (SAXException | IOException e) {
             e.printStackTrace();
         }
+
+        return dispatchedWords;
     }
 
     /**
@@ -128,6 +159,7 @@ public class SLWordLoader {
         Node modelNode = null;
         Node successNode = null;
         Node failureNode = null;
+        Node profileNode = null;
 
         for (int i = 0; i < childNodes.getLength(); i++) {
 
@@ -146,6 +178,9 @@ public class SLWordLoader {
                 case "failure":
                     failureNode = childNode;
                     break;
+                case "feature-profile":
+                    profileNode = childNode;
+                    break;
             }
         }
 
@@ -158,6 +193,8 @@ public class SLWordLoader {
         String name = nameNode.getTextContent();
         String version = getAttributeValue(wordAttributes, "version");
         String registeredDate = getAttributeValue(wordAttributes, "registered-registeredDate");
+        String warping = getAttributeValue(wordAttributes, "warping");
+        String warpingRatio = getAttributeValue(wordAttributes, "warping-ratio");
 
         // 워드의 음성 데이터를 읽어온다.
         List<SLNodeEntry> modelLayerNodeEntries = getNodeEntries(modelNode);
@@ -168,9 +205,76 @@ public class SLWordLoader {
         wordEntry.version = version;
         wordEntry.registeredDate = registeredDate;
 
+        // DTW 전역 제약 (없으면 제약 없음)
+        float ratio = warpingRatio.matches("^\\d*\\.?\\d+$") ? Float.parseFloat(warpingRatio) : 1f;
+        SLWarpingWindow warpingWindow = SLWarpingWindow.fromLabel(warping, ratio);
+        if (warpingWindow != null)
+            wordEntry.warpingWindow = warpingWindow;
+
+        // 특징 추출 프로필 (없으면 기존 방식)
+        if (profileNode != null) {
+            SLFeatureProfile featureProfile = getFeatureProfile(profileNode);
+            if (featureProfile == null)
+                return null;
+            wordEntry.featureProfile = featureProfile;
+        }
+
         return wordEntry;
     }
 
+    /**
+     * XML 노드로부터 특징 추출 프로필을 읽어온다.
+     * 이름이 같은 기본 프로필과 값이 모두 같다면 기본 프로필을 리턴하며, 유효하지 않다면 null을 리턴한다.
+     *
+     * @param profileNode
+     * @return
+     */
+    private SLFeatureProfile getFeatureProfile(Node profileNode) {
+
+        NamedNodeMap attributes = profileNode.getAttributes();
+
+        String name = getAttributeValue(attributes, "name");
+        String version = getAttributeValue(attributes, "version");
+        String rate = getAttributeValue(attributes, "sample-rate");
+        String window = getAttributeValue(attributes, "window");
+        String hop = getAttributeValue(attributes, "hop");
+        String fft = getAttributeValue(attributes, "fft");
+        String coefficients = getAttributeValue(attributes, "coefficients");
+
+        // 추출 과정이 바뀌었다면 디스크에 캐시된 특징행렬은 버려지고 다시 추출된다.
+        if (!version.equals(String.valueOf(SLFeatureExtractor.FEATURE_VERSION)))
+            System.out.println("Notice: Features of profile '" + name + "' (version " + version
+                    + ") will be extracted again with version " + SLFeatureExtractor.FEATURE_VERSION + ".");
+
+        SLFeatureProfile preset = SLFeatureProfile.fromName(name);
+
+        // 값이 없다면 이름만으로 찾는다.
+        if (!window.matches("^\\d+$") || !hop.matches("^\\d+$") || !fft.matches("^\\d+$") || !coefficients.matches("^\\d+$")) {
+            if (preset == null)
+                System.out.println("Warning: Unknown feature profile '" + name + "'.");
+            return preset;
+        }
+
+        // 샘플 레이트가 없다면 같은 이름의 기본 프로필, 또는 기본 정규 레이트를 따른다.
+        int sampleRate = rate.matches("^\\d+$") ? Integer.parseInt(rate)
+                : preset != null ? preset.sampleRate : SLFeatureProfile.CANONICAL_SAMPLE_RATE;
+        int windowSize = Integer.parseInt(window);
+        int hopSize = Integer.parseInt(hop);
+        int fftSize = Integer.parseInt(fft);
+        int coefficientNumber = Integer.parseInt(coefficients);
+
+        if (preset != null && preset.sampleRate == sampleRate && preset.windowSize == windowSize
+                && preset.hopSize == hopSize && preset.fftSize == fftSize && preset.coefficientNumber == coefficientNumber)
+            return preset;
+
+        try {
+            return new SLFeatureProfile(name, sampleRate, windowSize, hopSize, fftSize, coefficientNumber);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Warning: Invalid feature profile '" + name + "'. " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * XML 노드로부터 내부의 노드(데이터) 정보를 불러온다.
      *
@@ -265,7 +369,7 @@ public class SLWordLoader {
      * @param wordEntry
      * @return
      */
-    private void generateWord(SLWordEntry wordEntry, SLWordListener callback) {
+    private void generateWord(SLWordEntry wordEntry, SLWordLoaderListener callback) {
 
         // 워드 메타데이터
         SLWord.SLWordInfo wordInfo = new SLWord.SLWordInfo();
@@ -273,44 +377,170 @@ public class SLWordLoader {
         wordInfo.registeredDate = wordEntry.registeredDate;
 
         final SLWord word = new SLWord(wordEntry.name, wordInfo);
+        word.warpingWindow = wordEntry.warpingWindow;
+        word.featureProfile = wordEntry.featureProfile;
+
+        final File distanceCacheFile = new File(wordEntry.targetPath, wordEntry.name + ".dist");
+
+        // 세 레이어의 노드를 동시에 생성하고, 모두 끝나면 분석을 시작한다.
+        final AtomicInteger remainingLayers = new AtomicInteger(3);
+
+        SLNodesListener onLayerGenerated = (List<SLNode> nodes) -> {
+
+            if (remainingLayers.decrementAndGet() > 0)
+                return;
+
+            try {
+                analyzeWord(word, distanceCacheFile);
+            } catch (RuntimeException e) {
+                System.out.println("Warning: Failed to analyze word '" + word.name + "'.");
+                e.printStackTrace();
+                callback.onWordFailed(word.name);
+                return;
+            }
 
-        generateNodes(wordEntry.modelLayerNodeEntries, (List<SLNode> modelNodes) -> {
+            callback.onWordGenerated(word);
+        };
+
+        generateNodes(wordEntry.targetPath, wordEntry.modelLayerNodeEntries, word.featureProfile, (List<SLNode> modelNodes) -> {
             word.layer.model.nodes = modelNodes;
-            word.layer.model.analyzer.initialize();
+            onLayerGenerated.onNodesGenerated(modelNodes);
+        });
 
-            generateNodes(wordEntry.successLayerNodeEntries, (List<SLNode> successNodes) -> {
-                word.layer.success.nodes = successNodes;
-                word.layer.success.analyzer.initialize();
+        generateNodes(wordEntry.targetPath, wordEntry.successLayerNodeEntries, word.featureProfile, (List<SLNode> successNodes) -> {
+            word.layer.success.nodes = successNodes;
+            onLayerGenerated.onNodesGenerated(successNodes);
+        });
 
-                generateNodes(wordEntry.failureLayerNodeEntries, (List<SLNode> failureNodes) -> {
-                    word.layer.failure.nodes = failureNodes;
-                    word.layer.failure.analyzer.initialize();
+        generateNodes(wordEntry.targetPath, wordEntry.failureLayerNodeEntries, word.featureProfile, (List<SLNode> failureNodes) -> {
+            word.layer.failure.nodes = failureNodes;
+            onLayerGenerated.onNodesGenerated(failureNodes);
+        });
+    }
 
-                    callback.onWordGenerated(word);
-                });
-            });
+    /**
+     * 생성된 노드로 워드를 분석한다. 노드 간 거리를 준비한 후 각 레이어를 클러스터링한다.
+     *
+     * @param word
+     * @param distanceCacheFile
+     */
+    private void analyzeWord(SLWord word, File distanceCacheFile) {
+
+        List<SLNode> modelNodes = word.layer.model.nodes;
+        List<SLNode> successNodes = word.layer.success.nodes;
+        List<SLNode> failureNodes = word.layer.failure.nodes;
+
+        // 모든 노드를 등록한 후, 디스크에 저장된 거리를 먼저 불러온다.
+        for (SLNode node : modelNodes) word.nodes.add(node);
+        for (SLNode node : successNodes) word.nodes.add(node);
+        for (SLNode node : failureNodes) word.nodes.add(node);
+
+        restoreDistances(word, distanceCacheFile);
+
+        precompute(word, "model", modelNodes);
+        word.layer.model.analyzer.initialize();
+
+        precompute(word, "success", successNodes);
+        word.layer.success.analyzer.initialize();
+
+        precompute(word, "failure", failureNodes);
+        word.layer.failure.analyzer.initialize();
+    }
+
+    /**
+     * 거리 캐시 파일(*.dist)로부터 노드 간 거리를 복원한다.
+     *
+     * @param word
+     * @param distanceCacheFile
+     */
+    private void restoreDistances(SLWord word, File distanceCacheFile) {
+
+        SLDistanceCache distanceCache = SLDistanceCache.open(word, distanceCacheFile);
+
+        if (distanceCache == null)
+            return;
+
+        long restored = distanceCache.restore(word);
+        System.out.println("Restored " + restored + " cached distances of '" + word.name + "'.");
+    }
+
+    /**
+     * 레이어의 모든 노드 쌍의 거리를 병렬로 미리 계산한다. 이미 캐시된 쌍은 건너뛴다.
+     * 이후 클러스터 분석은 캐시된 거리만 사용하게 된다.
+     *
+     * @param word
+     * @param layerName
+     * @param nodes
+     */
+    private void precompute(SLWord word, String layerName, List<SLNode> nodes) {
+
+        final int[] reportedPercent = {0};
+
+        word.nodes.precompute(nodes, (long computedPairs, long totalPairs) -> {
+
+            int percent = (int) (computedPairs * 100 / totalPairs);
+
+            // 10% 단위로 출력한다.
+            synchronized (reportedPercent) {
+                if (percent / 10 <= reportedPercent[0] / 10)
+                    return;
+                reportedPercent[0] = percent;
+            }
+
+            System.out.println("Precomputing distances of '" + word.name + "' (" + layerName + " layer): "
+                    + percent + "% (" + computedPairs + " / " + totalPairs + " pairs)");
         });
     }
 
     /**
      * 노드 정보를 바탕으로 노드를 생성한다.
+     * 각 노드는 스레드 풀에서 병렬로 생성되며, 모든 항목이 처리되면 (실패한 항목 포함)
+     * 원래 순서대로 정렬된 노드 리스트로 콜백이 호출된다.
      *
+     * @param targetPath
      * @param nodeEntries
-     * @return
+     * @param featureProfile
+     * @param callback
      */
-    private void generateNodes(List<SLNodeEntry> nodeEntries, SLNodesListener callback) {
+    private void generateNodes(File targetPath, List<SLNodeEntry> nodeEntries, SLFeatureProfile featureProfile,
+                               SLNodesListener callback) {
 
         final int totalNodes = nodeEntries.size();
 
-        final List<SLNode> nodes = new ArrayList<>();
+        if (totalNodes == 0) {
+            callback.onNodesGenerated(new ArrayList<>());
+            return;
+        }
+
+        // 항목 순서대로 결과를 저장한다. 실패한 항목은 null로 남는다.
+        final SLNode[] generatedNodes = new SLNode[totalNodes];
+        final AtomicInteger remainingNodes = new AtomicInteger(totalNodes);
+
+        Runnable onEntryProcessed = () -> {
+
+            if (remainingNodes.decrementAndGet() > 0)
+                return;
+
+            List<SLNode> nodes = new ArrayList<>(totalNodes);
+            for (SLNode node : generatedNodes) {
+                if (node != null)
+                    nodes.add(node);
+            }
+
+            callback.onNodesGenerated(nodes);
+        };
 
-        for (SLNodeEntry nodeEntry : nodeEntries) {
+        for (int i = 0; i < totalNodes; i++) {
+
+            final int index = i;
+            final SLNodeEntry nodeEntry = nodeEntries.get(i);
 
             File audioFile = new File(targetPath, nodeEntry.source);
 
             // 파일이 존재하지 않을 경우
             if (!audioFile.exists()) {
                 System.out.println("Warning: Audio source '" + audioFile.getPath() + "' does not exist.");
+                onEntryProcessed.run();
                 continue;
             }
 
@@ -322,20 +552,21 @@ public class SLWordLoader {
             nodeInfo.recordedDate = nodeEntry.recordedDate;
 
             // 최고 uid 업데이트
-            SLNode.maximumUid = Math.max(SLNode.maximumUid, nodeEntry.uid);
-
-            SLNode.fromFile(nodeEntry.uid, nodeInfo, audioFile, (SLNode node) -> {
-
-                node.descriptions = nodeEntry.descriptions;
-
-                nodes.add(node);
-
-                if (totalNodes == nodes.size()) {
-
-                    // null 노드를 제거한다.
-                    nodes.removeAll(Collections.singleton(null));
-
-                    callback.onNodesGenerated(nodes);
+            SLNode.updateMaximumUid(nodeEntry.uid);
+
+            executor.execute(() -> {
+                try {
+                    // 노드 생성은 동기적으로 이루어지며, 실패하면 콜백이 호출되지 않는다.
+                    SLNode.fromFile(nodeEntry.uid, nodeInfo, audioFile, featureProfile, (SLNode node) -> {
+                        if (node != null)
+                            node.descriptions = nodeEntry.descriptions;
+                        generatedNodes[index] = node;
+                    });
+                } catch (RuntimeException e) {
+                    System.out.println("Warning: Failed to generate node from '" + audioFile.getPath() + "'.");
+                    e.printStackTrace();
+                } finally {
+                    onEntryProcessed.run();
                 }
             });
         }
@@ -378,6 +609,21 @@ public class SLWordLoader {
          */
         public String registeredDate;
 
+        /**
+         * DTW 전역 제약
+         */
+        public SLWarpingWindow warpingWindow = SLWarpingWindow.NONE;
+
+        /**
+         * 특징 추출 프로필
+         */
+        public SLFeatureProfile featureProfile = SLFeatureProfile.DEFAULT;
+
+        /**
+         * 음성 데이터 소스가 위치한 패스
+         */
+        public File targetPath;
+
         /**
          * 모델 레이어
          */
@@ -459,8 +705,4 @@ public class SLWordLoader {
         void onNodesGenerated(List<SLNode> nodes);
     }
 
-    private interface SLWordListener {
-        void onWordGenerated(SLWord word);
-    }
-
 }
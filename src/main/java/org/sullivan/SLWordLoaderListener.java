@@ -19,4 +19,12 @@ package org.sullivan;
 public interface SLWordLoaderListener {
 
     void onWordGenerated(SLWord word);
+
+    /**
+     * 노드 생성 이후 분석 도중 오류가 발생하여 워드를 생성하지 못했을 때 호출된다.
+     *
+     * @param wordName
+     */
+    default void onWordFailed(String wordName) {
+    }
 }
@@ -0,0 +1,128 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+
+package org.sullivan;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 거리 합을 누적하여 갱신하는 centroid가 모든 쌍을 다시 계산한 결과와 같은지 확인한다.
+ */
+public class SLClusterTest {
+
+    private static final int NODES = 24;
+
+    /**
+     * 노드를 무작위로 넣고 빼면서 매 단계마다 centroid와 평균 거리를 비교한다.
+     * 거리는 정수이므로 누적된 합에 반올림 오차가 없고, 동점 처리까지 같아야 한다.
+     */
+    @Test
+    public void incrementalCentroidMatchesBruteForce() {
+
+        Random random = new Random(11);
+
+        for (int trial = 0; trial < 20; trial++) {
+
+            double[][] distances = new double[NODES][NODES];
+            for (int i = 0; i < NODES; i++) {
+                for (int j = i + 1; j < NODES; j++)
+                    distances[i][j] = distances[j][i] = 1 + random.nextInt(8);
+            }
+
+            SLDistanceMap<SLNode> wordNodes = new SLDistanceMap<>(
+                    (SLNode node1, SLNode node2) -> distances[node1.uid][node2.uid]);
+
+            List<SLNode> nodes = new ArrayList<>();
+            for (int i = 0; i < NODES; i++) {
+                SLNode node = new SLNode(i, new SLNode.SLNodeInfo(), new SLFrameMatrix(new float[0], 0, 0));
+                wordNodes.add(node);
+                nodes.add(node);
+            }
+
+            SLCluster cluster = new SLCluster(new SLClusterGroup(wordNodes));
+            List<SLNode> members = new ArrayList<>();
+
+            for (int step = 0; step < 200; step++) {
+
+                SLNode node = nodes.get(random.nextInt(NODES));
+
+                if (members.contains(node)) {
+                    members.remove(node);
+                    cluster.removeNode(node);
+                } else {
+                    members.add(node);
+                    cluster.addNode(node);
+                }
+
+                assertEquals(members, cluster.getNodes());
+
+                if (members.isEmpty())
+                    continue;
+
+                assertSame(getCentroid(members, distances), cluster.getCentroid());
+                assertEquals(getAverageCentroidDistance(members, distances), cluster.getAverageCentroidDistance(), 0);
+            }
+        }
+    }
+
+    /**
+     * 다른 모든 노드까지의 거리 합이 가장 작은 노드 (동점이면 앞선 노드). 3개 미만이면 첫 노드
+     */
+    private static SLNode getCentroid(List<SLNode> members, double[][] distances) {
+
+        if (members.size() < 3)
+            return members.get(0);
+
+        SLNode centroid = null;
+        double minimumSum = Double.POSITIVE_INFINITY;
+
+        for (SLNode node : members) {
+            double sum = getDistanceSum(node, members, distances);
+            if (sum < minimumSum) {
+                minimumSum = sum;
+                centroid = node;
+            }
+        }
+        return centroid;
+    }
+
+    private static double getAverageCentroidDistance(List<SLNode> members, double[][] distances) {
+
+        if (members.size() < 2)
+            return 0;
+
+        if (members.size() < 3)
+            return distances[members.get(0).uid][members.get(1).uid];
+
+        return getDistanceSum(getCentroid(members, distances), members, distances) / members.size();
+    }
+
+    private static double getDistanceSum(SLNode node, List<SLNode> members, double[][] distances) {
+
+        double sum = 0;
+        for (SLNode member : members)
+            sum += distances[node.uid][member.uid];
+        return sum;
+    }
+}
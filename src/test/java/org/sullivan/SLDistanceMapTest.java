@@ -0,0 +1,92 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+
+package org.sullivan;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 거리 맵의 저장 방식 전환을 확인한다.
+ */
+public class SLDistanceMapTest {
+
+    /**
+     * 상삼각 행렬이 메모리 예산을 넘게 되면 해시 테이블로 옮기며, 이미 계산된 거리는 그대로 남아야 한다.
+     */
+    @Test
+    public void denseStorageSwitchesToStripedWithinBudget() {
+
+        long budget = SLDenseDistanceTable.MEMORY_BUDGET;
+
+        // 슬롯 40개 정도만 담을 수 있는 예산
+        SLDenseDistanceTable.MEMORY_BUDGET = 40 * 41 / 2 * Double.BYTES;
+
+        try {
+            int[] computations = {0};
+
+            SLDistanceMap<SLNode> map = new SLDistanceMap<>((SLNode node1, SLNode node2) -> {
+                computations[0]++;
+                return getDistance(node1, node2);
+            }, SLDistanceMap.Storage.DENSE);
+
+            List<SLNode> nodes = new ArrayList<>();
+
+            for (int i = 0; i < 30; i++) {
+                nodes.add(new SLNode(i, new SLNode.SLNodeInfo(), new SLFrameMatrix(new float[0], 0, 0)));
+                map.add(nodes.get(i));
+            }
+
+            for (int i = 0; i < nodes.size(); i++) {
+                for (int j = i + 1; j < nodes.size(); j++)
+                    map.getDistance(nodes.get(i), nodes.get(j));
+            }
+
+            assertTrue(map.distances instanceof SLDenseDistanceTable);
+
+            for (int i = 30; i < 100; i++) {
+                nodes.add(new SLNode(i, new SLNode.SLNodeInfo(), new SLFrameMatrix(new float[0], 0, 0)));
+                map.add(nodes.get(i));
+            }
+
+            assertTrue(map.distances instanceof SLStripedDistanceTable);
+
+            // 옮겨진 거리는 다시 계산하지 않는다.
+            int computed = computations[0];
+
+            for (int i = 0; i < 30; i++) {
+                for (int j = i + 1; j < 30; j++)
+                    assertEquals(getDistance(nodes.get(i), nodes.get(j)), map.getCachedDistance(nodes.get(i), nodes.get(j)), 0);
+            }
+
+            assertEquals(getDistance(nodes.get(3), nodes.get(70)), map.getDistance(nodes.get(3), nodes.get(70)), 0);
+            assertEquals(computed + 1, computations[0]);
+
+        } finally {
+            SLDenseDistanceTable.MEMORY_BUDGET = budget;
+        }
+    }
+
+    private static double getDistance(SLNode node1, SLNode node2) {
+        return Math.abs(node1.uid - node2.uid) + 0.5;
+    }
+}
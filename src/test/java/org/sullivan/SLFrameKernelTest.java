@@ -0,0 +1,137 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+
+package org.sullivan;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 벡터 커널을 스칼라 커널과 비교한다.
+ * 테스트 JVM은 --add-modules jdk.incubator.vector로 실행된다.
+ */
+public class SLFrameKernelTest {
+
+    /**
+     * float 누적으로 생기는 상대 오차의 허용치
+     */
+    private static final double TOLERANCE = 1e-6;
+
+    private static final int[] DIMENSIONS = {1, 2, 5, 13, 24};
+
+    /**
+     * 짧은 구간, 벡터 루프, 겹쳐 쓰는 마지막 벡터가 모두 스칼라 커널과 같은 거리를 내고
+     * 구간 밖은 건드리지 않는지 확인한다.
+     */
+    @Test
+    public void vectorKernelMatchesScalarKernel() {
+
+        SLFrameKernel vector = new SLVectorFrameKernel();
+        SLFrameKernel scalar = new SLScalarFrameKernel();
+
+        Random random = new Random(25);
+
+        for (int trial = 0; trial < 3000; trial++) {
+
+            int dimension = DIMENSIONS[random.nextInt(DIMENSIONS.length)];
+            SLFrameMatrix n = getRandomMatrix(random, 1 + random.nextInt(8), dimension);
+            SLFrameMatrix m = getRandomMatrix(random, 1 + random.nextInt(70), dimension);
+
+            int frame = random.nextInt(n.frames);
+            int from = random.nextInt(m.frames);
+            int to = from + 1 + random.nextInt(m.frames - from);
+
+            double[] expected = new double[m.frames];
+            double[] actual = new double[m.frames];
+            Arrays.fill(actual, Double.NaN);
+
+            scalar.getDistances(n, frame, m, from, to, expected);
+            vector.getDistances(n, frame, m, from, to, actual);
+
+            for (int j = 0; j < m.frames; j++) {
+                if (j < from || j >= to)
+                    assertTrue("frame " + j + " outside [" + from + ", " + to + ")", Double.isNaN(actual[j]));
+                else
+                    assertEquals(expected[j], actual[j], expected[j] * TOLERANCE + 1e-12);
+            }
+        }
+    }
+
+    /**
+     * 전역 제약이 있는 DTW 거리가 두 커널에서 같고, 벡터 커널의 거리가 하한보다 작지 않은지 확인한다.
+     */
+    @Test
+    public void vectorKernelMatchesScalarKernelInWindows() {
+
+        SLFrameKernel kernel = SLDtw.kernel;
+
+        SLWarpingWindow[] windows = {
+                SLWarpingWindow.NONE,
+                new SLWarpingWindow(SLWarpingWindow.Type.SAKOE_CHIBA, 0.1f),
+                new SLWarpingWindow(SLWarpingWindow.Type.SAKOE_CHIBA, 0.3f),
+                new SLWarpingWindow(SLWarpingWindow.Type.ITAKURA, 1f)
+        };
+
+        Random random = new Random(2025);
+
+        try {
+            for (int trial = 0; trial < 300; trial++) {
+
+                int dimension = DIMENSIONS[random.nextInt(DIMENSIONS.length)];
+                SLFrameMatrix n = getRandomMatrix(random, 1 + random.nextInt(60), dimension);
+                SLFrameMatrix m = getRandomMatrix(random, 1 + random.nextInt(60), dimension);
+
+                for (SLWarpingWindow window : windows) {
+
+                    SLDtw.kernel = new SLScalarFrameKernel();
+                    double expected = SLDtw.getDistance(n, m, window);
+
+                    SLDtw.kernel = new SLVectorFrameKernel();
+                    double actual = SLDtw.getDistance(n, m, window);
+
+                    if (Double.isInfinite(expected)) {
+                        assertEquals(expected, actual, 0);
+                        continue;
+                    }
+
+                    assertEquals(expected, actual, expected * TOLERANCE + 1e-12);
+                    assertTrue(SLDtw.getLowerBound(n, m) <= actual);
+                }
+            }
+        } finally {
+            SLDtw.kernel = kernel;
+        }
+    }
+
+    private static SLFrameMatrix getRandomMatrix(Random random, int frames, int dimension) {
+
+        float[] data = new float[frames * dimension];
+
+        // legacy 프로파일처럼 계수 값이 큰 경우도 섞는다.
+        float scale = random.nextBoolean() ? 1f : 100f;
+
+        for (int i = 0; i < data.length; i++)
+            data[i] = (float) random.nextGaussian() * scale;
+
+        return new SLFrameMatrix(data, frames, dimension);
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+
+package org.sullivan;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 해시 테이블의 저장과 슬롯 제거를 단순한 맵과 비교한다.
+ */
+public class SLStripedDistanceTableTest {
+
+    /**
+     * 슬롯을 제거하고 다시 쓰는 과정을 반복해도 남은 쌍과 지워진 쌍이 맵과 일치해야 한다.
+     */
+    @Test
+    public void removeDropsOnlyPairsOfTheSlot() {
+
+        SLStripedDistanceTable table = new SLStripedDistanceTable();
+        Map<Long, Double> expected = new HashMap<>();
+
+        Random random = new Random(4);
+
+        for (int step = 0; step < 20000; step++) {
+
+            int slot1 = random.nextInt(300);
+            int slot2 = random.nextInt(300);
+
+            if (random.nextInt(20) == 0) {
+
+                table.remove(slot1);
+
+                Iterator<Long> keys = expected.keySet().iterator();
+                while (keys.hasNext()) {
+                    long key = keys.next();
+                    if ((int) (key >>> 32) == slot1 || (int) key == slot1)
+                        keys.remove();
+                }
+
+            } else {
+                double distance = random.nextDouble();
+                table.put(slot1, slot2, distance);
+                expected.put(SLStripedDistanceTable.getKey(slot1, slot2), distance);
+            }
+
+            if (step % 1000 == 0)
+                assertMatches(expected, table);
+        }
+
+        assertMatches(expected, table);
+    }
+
+    private static void assertMatches(Map<Long, Double> expected, SLStripedDistanceTable table) {
+
+        assertEquals(expected.size(), table.size());
+
+        for (int slot1 = 0; slot1 < 300; slot1++) {
+            for (int slot2 = slot1; slot2 < 300; slot2++) {
+
+                Double distance = expected.get(SLStripedDistanceTable.getKey(slot1, slot2));
+
+                if (distance == null)
+                    assertTrue(Double.isNaN(table.get(slot1, slot2)));
+                else
+                    assertEquals(distance, table.get(slot2, slot1), 0);
+            }
+        }
+    }
+}
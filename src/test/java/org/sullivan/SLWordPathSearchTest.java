@@ -0,0 +1,120 @@
+/**
+ *   ___      _ _ _
+ * / __|_  _| | (_)_ ____ _ _ _
+ * \__ \ || | | | \ V / _` | ' \
+ * |___/\_,_|_|_|_|\_/\__,_|_||_|
+ *
+ * Copyright 2016 Sullivan Project
+ * https://github.com/agemor/sullivan
+ *
+ * This file is distributed under
+ * GNU GENERAL PUBLIC LICENSE Version 3, 29 June 2007
+ * for more details, See README.md
+ *
+ * Sullivan is developed by HyunJun Kim (me@hyunjun.org)
+ */
+
+
+package org.sullivan;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 레이어 단위 minimax DP로 찾은 교정 경로가 모든 단순 경로를 나열해 찾은 최적 경로와 같은 코스트인지 확인한다.
+ */
+public class SLWordPathSearchTest {
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    @Test
+    public void minimaxPathMatchesBruteForce() {
+
+        Random random = new Random(13);
+
+        for (int trial = 0; trial < 2000; trial++) {
+
+            int size = 1 + random.nextInt(7);
+            int origin = random.nextInt(size);
+
+            // 동점이 자주 생기도록 작은 정수 가중치를 쓰고, 일부 간선은 끊는다.
+            double[][] edges = new double[size][size];
+            for (int i = 0; i < size; i++) {
+                for (int j = i + 1; j < size; j++)
+                    edges[i][j] = edges[j][i] = random.nextInt(6) == 0 ? INFINITY : 1 + random.nextInt(10);
+            }
+
+            double[] exits = new double[size];
+            for (int i = 0; i < size; i++)
+                exits[i] = random.nextInt(4) == 0 ? INFINITY : 1 + random.nextInt(20);
+
+            int[] path = SLWord.searchMinimaxPath(origin, edges, exits);
+
+            // 가장 작은 코스트와, 그 코스트를 갖는 가장 짧은 경로의 길이
+            double[] best = {INFINITY, Integer.MAX_VALUE};
+            boolean[] visited = new boolean[size];
+            visited[origin] = true;
+            enumerate(origin, 1, 0, edges, exits, visited, best);
+
+            if (best[0] == INFINITY) {
+                assertEquals(0, path.length);
+                continue;
+            }
+
+            assertTrue(path.length > 0);
+            assertEquals(origin, path[0]);
+
+            boolean[] seen = new boolean[size];
+            for (int i : path) {
+                assertFalse("path revisits cluster " + i, seen[i]);
+                seen[i] = true;
+            }
+
+            assertEquals(best[0], getCost(path, edges, exits), 0);
+            assertEquals((int) best[1], path.length);
+        }
+    }
+
+    /**
+     * current에서 끝나는 단순 경로를 모두 나열한다.
+     */
+    private static void enumerate(int current, int length, double bottleneck, double[][] edges, double[] exits,
+                                  boolean[] visited, double[] best) {
+
+        double cost = getCost(length, Math.max(bottleneck, exits[current]));
+
+        if (cost < best[0] || (cost == best[0] && length < best[1])) {
+            best[0] = cost;
+            best[1] = length;
+        }
+
+        for (int next = 0; next < exits.length; next++) {
+            if (visited[next]) continue;
+
+            visited[next] = true;
+            enumerate(next, length + 1, Math.max(bottleneck, edges[current][next]), edges, exits, visited, best);
+            visited[next] = false;
+        }
+    }
+
+    private static double getCost(int[] path, double[][] edges, double[] exits) {
+
+        double bottleneck = exits[path[path.length - 1]];
+        for (int i = 1; i < path.length; i++)
+            bottleneck = Math.max(bottleneck, edges[path[i - 1]][path[i]]);
+
+        return getCost(path.length, bottleneck);
+    }
+
+    /**
+     * 실패사례 클러스터 length개와 성공사례 클러스터 하나를 거치는 경로의 CMV 코스트
+     */
+    private static double getCost(int length, double bottleneck) {
+        return SLCmvPath.correctionCoefficient * Math.sqrt(length + 1) * bottleneck;
+    }
+}